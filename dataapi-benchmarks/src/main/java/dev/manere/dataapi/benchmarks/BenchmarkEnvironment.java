@@ -0,0 +1,95 @@
+package dev.manere.dataapi.benchmarks;
+
+import dev.manere.dataapi.api.DataAPI;
+import dev.manere.dataapi.api.StorageFormat;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * A minimal server environment for running DataAPI outside of a server:
+ * a stub {@link Server} whose plugins folder is a temp directory, and a plugin owning the DataAPI instance.
+ */
+public class BenchmarkEnvironment {
+    private final Path pluginsFolder;
+    private final DataAPI api;
+
+    public BenchmarkEnvironment(final @NotNull StorageFormat format) throws IOException {
+        this.pluginsFolder = Files.createTempDirectory("dataapi-benchmark");
+
+        final Server server = server(pluginsFolder.toFile());
+        if (Bukkit.getServer() == null) Bukkit.setServer(server);
+
+        final JavaPlugin plugin = new BenchmarkPlugin(server, pluginsFolder.toFile());
+
+        // Background flushes would land in the middle of measurements, saves are benchmarked explicitly.
+        this.api = DataAPI.builder()
+                .source(plugin)
+                .folder("benchmark")
+                .format(format)
+                .flushInterval(Duration.ofHours(1))
+                .flushThreshold(0)
+                .syncWrites(false)
+                .register();
+    }
+
+    public @NotNull DataAPI api() {
+        return api;
+    }
+
+    public void close() throws IOException {
+        api.unregister();
+
+        try (final Stream<Path> files = Files.walk(pluginsFolder)) {
+            for (final Path path : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(path);
+        }
+    }
+
+    private static @NotNull Server server(final @NotNull File pluginsFolder) {
+        final Logger logger = Logger.getLogger("DataAPI Benchmark");
+
+        return (Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[]{Server.class}, (proxy, method, args) -> switch (method.getName()) {
+            case "getPluginsFolder", "getWorldContainer" -> pluginsFolder;
+            case "getLogger" -> logger;
+            case "isPrimaryThread" -> false;
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> {
+                final Class<?> type = method.getReturnType();
+                if (type == String.class) yield "DataAPI Benchmark";
+                if (type == boolean.class) yield false;
+                if (type == int.class) yield 0;
+                if (type == long.class) yield 0L;
+                yield null;
+            }
+        });
+    }
+
+    /**
+     * A plugin created through the initialization constructor JavaPlugin offers for running outside a server.
+     */
+    public static class BenchmarkPlugin extends JavaPlugin {
+        @SuppressWarnings("deprecation")
+        public BenchmarkPlugin(final @NotNull Server server, final @NotNull File pluginsFolder) {
+            super(
+                    new JavaPluginLoader(server),
+                    new PluginDescriptionFile("DataAPIBenchmark", "1.0", BenchmarkPlugin.class.getName()),
+                    new File(pluginsFolder, "DataAPIBenchmark"),
+                    new File(pluginsFolder, "DataAPIBenchmark.jar")
+            );
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dev.manere.dataapi.benchmarks;
+
+import dev.manere.dataapi.api.DataEditor;
+import dev.manere.dataapi.api.DataResource;
+import dev.manere.dataapi.api.StorageFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the DataEditor hot paths against resources of growing size.
+ * Keys are spread over sections of 100 keys each ({@code section3.key342}), like a typical player file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EditorBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int keys;
+
+    @Param({"yaml", "binary"})
+    public String format;
+
+    private BenchmarkEnvironment environment;
+    private DataResource resource;
+    private DataEditor<DataResource> editor;
+    private String hotKey;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        environment = new BenchmarkEnvironment(format.equals("binary") ? StorageFormat.binary() : StorageFormat.yaml());
+        resource = environment.api().data("benchmark", "resource-" + keys);
+        editor = resource.editor();
+
+        for (int i = 0; i < keys; i++) editor.store(key(i), i);
+        resource.save();
+
+        hotKey = key(keys / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        environment.close();
+    }
+
+    private static String key(final int index) {
+        return "section" + index / 100 + ".key" + index;
+    }
+
+    @Benchmark
+    public Object retrieve() {
+        return editor.retrieve(hotKey);
+    }
+
+    @Benchmark
+    public void store() {
+        editor.store(hotKey, counter++);
+    }
+
+    @Benchmark
+    public Map<String, Object> pairs() {
+        return editor.pairs();
+    }
+
+    @Benchmark
+    public List<String> keys() {
+        return editor.keys();
+    }
+
+    @Benchmark
+    public List<Integer> valuesPredicate() {
+        return editor.<Integer>values(value -> value instanceof Integer number && number % 2 == 0);
+    }
+
+    @Benchmark
+    public DataResource save() {
+        editor.store(hotKey, counter++);
+        return resource.save();
+    }
+
+    @Benchmark
+    public Object reload() {
+        resource.reload();
+        return editor.retrieve(hotKey);
+    }
+}
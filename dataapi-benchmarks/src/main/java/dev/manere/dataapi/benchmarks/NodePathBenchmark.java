@@ -0,0 +1,49 @@
+package dev.manere.dataapi.benchmarks;
+
+import dev.manere.dataapi.util.NodePath;
+import dev.manere.dataapi.util.NodePathInternal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures NodePath conversion and the path splitting done by the String overloads of DataEditor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodePathBenchmark {
+    private final NodePath path = NodePath.parents("~", "players", "stats", "combat");
+    private final String dotted = "players.stats.combat.kills";
+
+    @Benchmark
+    public String convert() {
+        return path.convert();
+    }
+
+    @Benchmark
+    public String constructAndConvert() {
+        return NodePath.parents("~", "players", "stats", "combat").convert();
+    }
+
+    @Benchmark
+    public NodePath compile() {
+        return NodePath.compile(dotted);
+    }
+
+    @Benchmark
+    public String splitPath() {
+        return NodePathInternal.pathOnly(dotted).convert() + NodePathInternal.nameOnly(dotted);
+    }
+}
@@ -0,0 +1,88 @@
+package dev.manere.dataapi.api;
+
+import dev.manere.dataapi.util.NodePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+import static dev.manere.dataapi.util.NodePathInternal.nameOnly;
+import static dev.manere.dataapi.util.NodePathInternal.pathOnly;
+
+/**
+ * The AsyncDataEditor interface provides non-blocking counterparts of the {@link DataEditor} methods.
+ * All disk access runs on the DataAPI I/O executor, see {@link DataAPIBuilder#ioThreads(int)}.
+ *
+ * @param <R> The type of the resource being edited.
+ */
+public interface AsyncDataEditor<R> {
+    /**
+     * Retrieves the resource associated with this AsyncDataEditor.
+     *
+     * @return The resource.
+     */
+    @NotNull R resource();
+
+    /**
+     * Retrieves the value associated with the specified node path and name.
+     *
+     * @param parent The parent node path.
+     * @param name   The name of the node.
+     * @return A future completed with the retrieved value, or null if not found.
+     */
+    @NotNull CompletableFuture<@Nullable Object> retrieveAsync(final @NotNull NodePath parent, final @NotNull String name);
+
+    /**
+     * Retrieves the value associated with the specified node path.
+     *
+     * @param path The node path.
+     * @return A future completed with the retrieved value, or null if not found.
+     */
+    default @NotNull CompletableFuture<@Nullable Object> retrieveAsync(final @NotNull String path) {
+        return retrieveAsync(pathOnly(path), nameOnly(path));
+    }
+
+    /**
+     * Retrieves the value associated with the specified node path and name, casting it to the specified type.
+     *
+     * @param parent The parent node path.
+     * @param name   The name of the node.
+     * @param type   The expected type of the value.
+     * @param <V>    The type parameter.
+     * @return A future completed with the retrieved value, or null if not found.
+     */
+    @NotNull <V> CompletableFuture<@Nullable V> retrieveAsync(final @NotNull NodePath parent, final @NotNull String name, final @NotNull Class<V> type);
+
+    /**
+     * Retrieves the value associated with the specified node path, casting it to the specified type.
+     *
+     * @param path The node path.
+     * @param type The expected type of the value.
+     * @param <V>  The type parameter.
+     * @return A future completed with the retrieved value, or null if not found.
+     */
+    default @NotNull <V> CompletableFuture<@Nullable V> retrieveAsync(final @NotNull String path, final @NotNull Class<V> type) {
+        return retrieveAsync(pathOnly(path), nameOnly(path), type);
+    }
+
+    /**
+     * Stores a value in the specified node path.
+     *
+     * @param parent The parent node path.
+     * @param name   The name of the node.
+     * @param value  The value to store.
+     * @return A future completed once the value is stored.
+     */
+    @NotNull CompletableFuture<Void> storeAsync(final @NotNull NodePath parent, final @NotNull String name, final @Nullable Object value);
+
+    /**
+     * Stores a value in the specified node path.
+     *
+     * @param path  The node path.
+     * @param value The value to store.
+     * @return A future completed once the value is stored.
+     */
+    default @NotNull CompletableFuture<Void> storeAsync(final @NotNull String path, final @Nullable Object value) {
+        return storeAsync(pathOnly(path), nameOnly(path), value);
+    }
+}
@@ -0,0 +1,48 @@
+package dev.manere.dataapi.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The AsyncDataResource interface provides non-blocking counterparts of the {@link DataResourceBase} methods.
+ * All disk access runs on the DataAPI I/O executor, see {@link DataAPIBuilder#ioThreads(int)}.
+ *
+ * @param <D> The type of the data resource.
+ */
+public interface AsyncDataResource<D> {
+    /**
+     * Retrieves the resource these operations apply to.
+     *
+     * @return The resource.
+     */
+    @NotNull D resource();
+
+    /**
+     * Retrieves an AsyncDataEditor instance for editing the content of the data resource.
+     *
+     * @return An AsyncDataEditor instance.
+     */
+    @NotNull AsyncDataEditor<D> editor();
+
+    /**
+     * Loads the content of the data resource into memory, after which its editor no longer touches the disk.
+     *
+     * @return A future completed with the editor of the loaded resource.
+     */
+    @NotNull CompletableFuture<DataEditor<D>> loadAsync();
+
+    /**
+     * Saves changes made to the data resource.
+     *
+     * @return A future completed with the resource once its changes are written.
+     */
+    @NotNull CompletableFuture<D> saveAsync();
+
+    /**
+     * Reloads the content of the data resource, discarding unsaved changes.
+     *
+     * @return A future completed with the resource once its content is loaded again.
+     */
+    @NotNull CompletableFuture<D> reloadAsync();
+}
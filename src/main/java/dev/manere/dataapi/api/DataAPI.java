@@ -2,12 +2,17 @@ package dev.manere.dataapi.api;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import dev.manere.dataapi.impl.DataAPIImpl;
+import dev.manere.dataapi.util.NodePath;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The DataAPI interface provides methods for managing and accessing data resources.
@@ -72,6 +77,7 @@ public interface DataAPI {
 
         handler.source(source);
         handler.folder(folderName);
+        handler.rootChar(rootChar);
         handler.register();
 
         return handler;
@@ -147,6 +153,58 @@ public interface DataAPI {
      */
     @NotNull PlayerDataResource player(final @NotNull UUID uuid);
 
+    /**
+     * Creates a bulk query over every resource in the parent folder, including player resources stored there.
+     *
+     * @param parent The parent folder.
+     * @return A DataScan instance.
+     */
+    @NotNull DataScan scan(final @NotNull String parent);
+
+    /**
+     * Creates a bulk query over every resource directly in the data folder.
+     *
+     * @return A DataScan instance.
+     */
+    @NotNull DataScan scan();
+
+    /**
+     * Retrieves the index of the given path over every resource in the parent folder, such as a linked account ID
+     * of every player. The index is loaded from disk, or built from every resource the first time it is used.
+     *
+     * @param parent The parent folder.
+     * @param path   The indexed path.
+     * @return A DataIndex instance.
+     */
+    @NotNull DataIndex index(final @NotNull String parent, final @NotNull NodePath path);
+
+    /**
+     * Retrieves the index of the given path over every resource directly in the data folder.
+     *
+     * @param path The indexed path.
+     * @return A DataIndex instance.
+     */
+    @NotNull DataIndex index(final @NotNull NodePath path);
+
+    /**
+     * Moves the player resources of the parent folder into the configured {@link DataLayout}, in parallel.
+     * Every file is moved atomically, so an interrupted migration can simply be started again and resumes.
+     * Run it before the resources are used, such as when the plugin enables: resources already resolved keep their old
+     * file, and files of online players or with unsaved changes are skipped until the next migration.
+     *
+     * @param parent The parent folder.
+     * @return A future completed with the amount of moved files.
+     */
+    @NotNull CompletableFuture<Integer> migrate(final @NotNull String parent);
+
+    /**
+     * Moves the player resources directly in the data folder into the configured {@link DataLayout}, in parallel.
+     *
+     * @return A future completed with the amount of moved files.
+     * @see #migrate(String)
+     */
+    @NotNull CompletableFuture<Integer> migrate();
+
     /**
      * Retrieves the JavaPlugin src for the DataAPI instance.
      *
@@ -179,4 +237,59 @@ public interface DataAPI {
      * Registers the DataAPI instance, initializing and configuring it for use.
      */
     void register();
+
+    /**
+     * Writes every resource with unsaved changes to disk on the calling thread.
+     * Changes are otherwise written in the background, see {@link DataAPIBuilder#flushInterval(java.time.Duration)}.
+     *
+     * @return The amount of written resources.
+     */
+    @CanIgnoreReturnValue
+    int flushAll();
+
+    /**
+     * Writes every resource with unsaved changes to disk on parallel workers, such as when the plugin is disabled.
+     * Resources are written directory by directory on {@link DataAPIBuilder#saveThreads(int)} workers, and progress is
+     * logged every second. Once the timeout passes no more resources are written, the ones left are logged
+     * and keep their changes, which {@link #unregister()} still writes.
+     *
+     * @param timeout The time after which no more resources are written.
+     * @return The report of the save.
+     */
+    @CanIgnoreReturnValue
+    @NotNull SaveReport saveAll(final @NotNull Duration timeout);
+
+    /**
+     * Writes every resource with unsaved changes to disk on parallel workers, within 30 seconds.
+     *
+     * @return The report of the save.
+     * @see #saveAll(Duration)
+     */
+    @CanIgnoreReturnValue
+    default @NotNull SaveReport saveAll() {
+        return saveAll(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Retrieves the metrics recorded by this DataAPI instance, such as load and save latencies per resource type.
+     *
+     * @return The metrics.
+     */
+    @NotNull DataMetrics metrics();
+
+    /**
+     * Flushes every unsaved change and stops the background writer.
+     * Call this when the plugin is disabled.
+     */
+    void unregister();
+
+    /**
+     * The outcome of a {@link #saveAll(Duration)}.
+     *
+     * @param saved    The amount of written resources.
+     * @param unsaved  The files of the resources still holding unsaved changes, because of the timeout or failures.
+     * @param elapsed  The time the save took.
+     * @param complete Whether every resource was handed to a worker before the timeout and none failed.
+     */
+    record SaveReport(int saved, @NotNull List<File> unsaved, @NotNull Duration elapsed, boolean complete) {}
 }
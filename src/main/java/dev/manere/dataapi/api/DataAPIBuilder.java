@@ -4,6 +4,11 @@ import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import dev.manere.dataapi.impl.DataAPIBuilderImpl;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The DataAPIBuilder interface provides methods for building and configuring DataAPI instances.
@@ -46,6 +51,226 @@ public interface DataAPIBuilder {
     @CanIgnoreReturnValue
     @NotNull DataAPIBuilder rootChar(final @NotNull String root);
 
+    /**
+     * Sets the format resources are stored in, {@link StorageFormat#yaml()} by default.
+     *
+     * @param format The storage format.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder format(final @NotNull StorageFormat format);
+
+    /**
+     * Sets the maximum number of parsed documents kept in memory.
+     * The least recently used documents are evicted first once the limit is reached.
+     *
+     * @param size The maximum number of cached documents.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder cacheSize(final int size);
+
+    /**
+     * Sets how long a parsed document may stay unused before it is evicted from memory.
+     *
+     * @param idleTime The idle time, zero to keep documents until the size limit is hit.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder cacheIdleTime(final @NotNull Duration idleTime);
+
+    /**
+     * Sets how often resources with unsaved changes are written to disk in the background.
+     *
+     * @param interval The flush interval.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder flushInterval(final @NotNull Duration interval);
+
+    /**
+     * Sets the amount of changes after which a resource is written to disk before the next flush interval.
+     *
+     * @param threshold The change threshold, zero to only flush on the interval.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder flushThreshold(final int threshold);
+
+    /**
+     * Sets whether saves are forced to the storage device (fsync) before they are considered done.
+     * Saves always replace files atomically through a temp file, forcing additionally makes them survive power loss.
+     * Defaults to true.
+     *
+     * @param syncWrites True to fsync every save.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder syncWrites(final boolean syncWrites);
+
+    /**
+     * Sets whether all resources flushed in the same background cycle are committed as a group:
+     * their temp files are forced back to back, renamed together and each directory is synced once,
+     * so the fsync cost doesn't scale with the amount of online players. Defaults to true.
+     *
+     * @param groupCommit True to group background flushes.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder groupCommit(final boolean groupCommit);
+
+    /**
+     * Sets the amount of threads performing the disk access of the async API.
+     *
+     * @param threads The amount of I/O threads.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder ioThreads(final int threads);
+
+    /**
+     * Sets the amount of workers writing resources in parallel during {@link DataAPI#saveAll(Duration)}.
+     *
+     * @param threads The amount of save workers.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder saveThreads(final int threads);
+
+    /**
+     * Sets a custom executor performing the disk access of the async API.
+     * DataAPI never shuts a custom executor down.
+     *
+     * @param executor The I/O executor.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder ioExecutor(final @NotNull ExecutorService executor);
+
+    /**
+     * Sets whether the disk access of the async API runs on a virtual thread per task,
+     * so mass loads (e.g. many players joining after a restart) don't queue behind a few platform threads.
+     * Falls back to {@link #ioThreads(int)} platform threads on runtimes older than Java 21.
+     *
+     * @param virtualThreads True to use virtual threads.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder virtualThreads(final boolean virtualThreads);
+
+    /**
+     * Sets the maximum amount of async tasks touching the disk at once, so thousands of concurrent loads
+     * don't exhaust the file descriptors of the process. Defaults to 256.
+     *
+     * @param maxConcurrentIo The maximum amount of concurrent I/O tasks, zero for no limit.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder maxConcurrentIo(final int maxConcurrentIo);
+
+    /**
+     * Sets whether futures returned by the async API complete on the server main thread,
+     * so their callbacks may safely use the Bukkit API. Once the plugin is disabled, such as for saves
+     * still completing during shutdown, they complete on the thread finishing the task instead.
+     *
+     * @param mainThreadCallbacks True to complete futures on the main thread.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder mainThreadCallbacks(final boolean mainThreadCallbacks);
+
+    /**
+     * Enables a periodic report of the {@link DataMetrics} snapshots, disabled by default.
+     *
+     * @param interval The report interval.
+     * @param file     The CSV file rows are appended to, or null to report to the plugin logger.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder metricsReporter(final @NotNull Duration interval, final @Nullable File file);
+
+    /**
+     * Enables player sessions, disabled by default.
+     * The resource returned by {@link DataAPI#player(java.util.UUID)} is then loaded off the main thread while the
+     * player logs in and kept in memory while they are online. Once they quit, it is saved and released after the grace period.
+     *
+     * @param gracePeriod How long the resource stays in memory after its player quits.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder playerSessions(final @NotNull Duration gracePeriod);
+
+    /**
+     * Sets the amount of threads parsing files during {@link DataAPI#scan(String)}, defaults to the amount of processors.
+     *
+     * @param parallelism The scan parallelism.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder scanParallelism(final int parallelism);
+
+    /**
+     * Sets how player resources are laid out in their folder, {@link DataLayout#FLAT} by default.
+     * Switch existing folders with {@link DataAPI#migrate(String)}.
+     *
+     * @param layout The layout.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder layout(final @NotNull DataLayout layout);
+
+    /**
+     * Stores the resources of the given parent folders in append-only segment files instead of one file each.
+     * Suited to folders holding many small resources, writes become sequential appends and reads are memory-mapped.
+     * Existing files of these folders keep loading and move into the segments when they are next saved.
+     *
+     * @param parents The parent folders, as passed to {@link DataAPI#data(String, String)}.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder segmented(final @NotNull String @NotNull ... parents);
+
+    /**
+     * Sets the size from which resource files are memory-mapped instead of read onto the heap, 1 MiB by default.
+     * Large resources are then decoded straight from the mapping. Only formats that {@link StorageFormat#decodesInPlace()
+     * decode in place}, such as the binary format, are mapped, YAML is decoded into text and always read onto the heap.
+     * On Windows, a mapped file can't be replaced until the mapping is garbage collected,
+     * so saves of recently loaded large resources may be retried.
+     *
+     * @param bytes The threshold in bytes, 0 to never map files.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder mapThreshold(final long bytes);
+
+    /**
+     * Sets whether saves of large resources only write the changed values, disabled by default.
+     * The changes are appended to a {@code .delta} journal next to the resource file and replayed when it's loaded,
+     * so a save costs the size of the change rather than the size of the resource. Once the journal grows to half
+     * the size of the file, the next save rewrites the file and drops the journal.
+     * Resources whose sections were retrieved or stored as {@link org.bukkit.configuration.ConfigurationSection}s,
+     * and resources in {@link #segmented(String...)} folders, are always rewritten.
+     *
+     * @param deltaSaves True to enable delta saves.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder deltaSaves(final boolean deltaSaves);
+
+    /**
+     * Enables a write-ahead log, disabled by default. Every store is appended to a log in the data folder,
+     * which is forced to the storage device once per sync interval for all stores together, so a store is durable
+     * within the interval instead of at the next save of its resource. Each background flush checkpoints the log,
+     * and stores logged before a crash are replayed by {@link DataAPI#register()}.
+     * Comments, headers, footers and changes made through live sections aren't logged.
+     *
+     * @param syncInterval How often the log is forced to the storage device, such as a few milliseconds,
+     *                     or null to disable the log.
+     * @return The DataAPIBuilder instance for method chaining.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataAPIBuilder writeAheadLog(final @Nullable Duration syncInterval);
+
     /**
      * Registers and returns the configured DataAPI instance.
      *
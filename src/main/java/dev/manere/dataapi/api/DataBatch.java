@@ -0,0 +1,56 @@
+package dev.manere.dataapi.api;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import dev.manere.dataapi.util.NodePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The DataBatch interface collects stores to apply to a resource at once, see {@link DataEditor#batch(java.util.function.Consumer)}.
+ * Nothing is stored until the batch returns, a later store of the same path replaces the earlier one.
+ */
+public interface DataBatch {
+    /**
+     * Stores a value in the specified node path.
+     *
+     * @param path  The node path, including the name of the node.
+     * @param value The value to store.
+     * @return This batch.
+     */
+    @CanIgnoreReturnValue
+    @NotNull DataBatch store(final @NotNull NodePath path, final @Nullable Object value);
+
+    /**
+     * Stores a value in the specified node path.
+     *
+     * @param path  The node path.
+     * @param value The value to store.
+     * @return This batch.
+     */
+    @CanIgnoreReturnValue
+    default @NotNull DataBatch store(final @NotNull String path, final @Nullable Object value) {
+        return store(NodePath.compile(path), value);
+    }
+
+    /**
+     * Removes the specified node path.
+     *
+     * @param path The node path, including the name of the node.
+     * @return This batch.
+     */
+    @CanIgnoreReturnValue
+    default @NotNull DataBatch remove(final @NotNull NodePath path) {
+        return store(path, null);
+    }
+
+    /**
+     * Removes the specified node path.
+     *
+     * @param path The node path.
+     * @return This batch.
+     */
+    @CanIgnoreReturnValue
+    default @NotNull DataBatch remove(final @NotNull String path) {
+        return remove(NodePath.compile(path));
+    }
+}
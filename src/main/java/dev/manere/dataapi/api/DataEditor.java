@@ -8,9 +8,13 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import static dev.manere.dataapi.util.NodePathInternal.nameOnly;
 import static dev.manere.dataapi.util.NodePathInternal.pathOnly;
@@ -18,6 +22,13 @@ import static dev.manere.dataapi.util.NodePathInternal.pathOnly;
 /**
  * The DataEditor interface provides methods for storing, retrieving, and manipulating data in a resource.
  * It supports various operations such as storing values, retrieving values, working with lists and sections, and more.
+ * <p>
+ * Editors are safe to use from any thread. Every editor of a resource shares one document guarded by a read-write lock:
+ * each read sees a whole store and each store applies atomically, reads run concurrently with each other,
+ * and neither waits on the resource being written to disk. A read followed by a store isn't atomic,
+ * use {@link #compute(NodePath, UnaryOperator)} or {@link #update(Consumer)} for read-modify-write sequences.
+ * Sections returned by {@link #retrieveSection(NodePath, String)} and {@link #storeSection(NodePath, String)}
+ * are detached copies, changes to them don't reach the resource and are stored through the editor instead.
  *
  * @param <R> The type of the resource being edited.
  */
@@ -111,12 +122,69 @@ public interface DataEditor<R> {
      * @param value  The value to store.
      */
     default void store(final @NotNull String path, final @Nullable Object value) {
-        store(
-                pathOnly(path), nameOnly(path),
-                value
-        );
+        store(NodePath.compile(path), value);
     }
 
+    /**
+     * Stores a value in the specified node path.
+     *
+     * @param path   The node path, including the name of the node.
+     * @param value  The value to store.
+     */
+    void store(final @NotNull NodePath path, final @Nullable Object value);
+
+    /**
+     * Replaces the value at the given path with the result of the function, atomically.
+     * No other read or store of the resource happens between reading the current value and storing the new one.
+     * The function must not block, it holds up every other editor of the resource.
+     *
+     * @param path     The node path.
+     * @param function The function, receiving the current value or null.
+     * @return The new value.
+     */
+    @CanIgnoreReturnValue
+    @Nullable Object compute(final @NotNull NodePath path, final @NotNull UnaryOperator<Object> function);
+
+    /**
+     * Replaces the value at the given path with the result of the function, atomically.
+     *
+     * @param path     The node path.
+     * @param function The function, receiving the current value or null.
+     * @return The new value.
+     * @see #compute(NodePath, UnaryOperator)
+     */
+    @CanIgnoreReturnValue
+    default @Nullable Object compute(final @NotNull String path, final @NotNull UnaryOperator<Object> function) {
+        return compute(NodePath.compile(path), function);
+    }
+
+    /**
+     * Runs a transaction on the resource. Other editors, on any thread, neither read nor store the resource
+     * until the transaction returns, including primitive reads, stores and increments, so it sees and leaves
+     * the resource consistent. The resource stays cached for the whole transaction.
+     * Stores made inside are saved like any other store, a transaction failing halfway keeps the stores it made.
+     * The resource can't be saved from inside its own transaction.
+     *
+     * @param transaction The transaction, receiving this editor.
+     */
+    void update(final @NotNull Consumer<? super DataEditor<R>> transaction);
+
+    /**
+     * Stores several values at once, atomically. The resource is locked once for all of them,
+     * and they're saved together like a single store.
+     *
+     * @param values The values to store by path, null values remove their path. Stored in iteration order.
+     */
+    void storeAll(final @NotNull Map<NodePath, ?> values);
+
+    /**
+     * Stores several values at once, collected by the given batch.
+     *
+     * @param batch The batch, receiving the builder collecting the stores.
+     * @see #storeAll(Map)
+     */
+    void batch(final @NotNull Consumer<? super DataBatch> batch);
+
     /**
      * Retrieves the value associated with the specified node path and name.
      *
@@ -148,11 +216,17 @@ public interface DataEditor<R> {
      * @return The retrieved value, or null if not found.
      */
     default @Nullable Object retrieve(final @NotNull String path) {
-        return retrieve(
-                pathOnly(path), nameOnly(path)
-        );
+        return retrieve(NodePath.compile(path));
     }
 
+    /**
+     * Retrieves the value associated with the specified node path.
+     *
+     * @param path   The node path, including the name of the node.
+     * @return The retrieved value, or null if not found.
+     */
+    @Nullable Object retrieve(final @NotNull NodePath path);
+
     /**
      * Retrieves the value associated with the specified node path and name.
      *
@@ -160,8 +234,11 @@ public interface DataEditor<R> {
      * @param def    The default value.
      * @return The retrieved value, or the default value if not found.
      */
+    @SuppressWarnings("unchecked")
     default @NotNull <D> D retrieve(final @NotNull String path, final D def) {
-        return retrieve(pathOnly(path), nameOnly(path), def);
+        final Object nullable = retrieve(path);
+        if (nullable == null) return def;
+        return (D) nullable;
     }
 
     /**
@@ -184,12 +261,158 @@ public interface DataEditor<R> {
      * @return The retrieved value, or null if not found or not of the expected type.
      */
     default @Nullable <V> V retrieve(final @NotNull String path, final @NotNull Class<V> type) {
-        return retrieve(
-                pathOnly(path), nameOnly(path),
-                type
-        );
+        return retrieve(NodePath.compile(path), type);
     }
 
+    /**
+     * Retrieves the value associated with the specified node path, casting it to the specified type.
+     *
+     * @param path   The node path, including the name of the node.
+     * @param type   The expected type of the value.
+     * @param <V>    The type parameter.
+     * @return The retrieved value, or null if not found or not of the expected type.
+     */
+    default @Nullable <V> V retrieve(final @NotNull NodePath path, final @NotNull Class<V> type) {
+        return type.cast(retrieve(path));
+    }
+
+    /**
+     * Retrieves the values at the given paths without loading the whole resource.
+     * If the resource isn't in memory, only the requested values are decoded from its file,
+     * and decoding stops once the last of them is read. The resource is not cached by this call.
+     *
+     * @param paths The paths of the values.
+     * @return The retrieved values by path, without entries for values not found.
+     */
+    @NotNull Map<NodePath, Object> retrieveProjected(final @NotNull Set<NodePath> paths);
+
+    /**
+     * Retrieves the values at the given paths without loading the whole resource.
+     *
+     * @param paths The paths of the values.
+     * @return The retrieved values by path, without entries for values not found.
+     * @see #retrieveProjected(Set)
+     */
+    default @NotNull Map<NodePath, Object> retrieveProjected(final @NotNull NodePath... paths) {
+        return retrieveProjected(new LinkedHashSet<>(Arrays.asList(paths)));
+    }
+
+    /**
+     * Retrieves several values at once, from one consistent view of the resource.
+     * Unlike {@link #retrieveProjected(Set)} the resource is loaded and cached, so this suits resources in use.
+     *
+     * @param paths The paths of the values.
+     * @return The retrieved values by path in the order of the paths, without entries for values not found.
+     */
+    @NotNull Map<NodePath, Object> retrieveAll(final @NotNull Collection<NodePath> paths);
+
+    /**
+     * Retrieves several values at once, from one consistent view of the resource.
+     *
+     * @param paths The paths of the values.
+     * @return The retrieved values by path in the order of the paths, without entries for values not found.
+     * @see #retrieveAll(Collection)
+     */
+    default @NotNull Map<NodePath, Object> retrieveAll(final @NotNull NodePath... paths) {
+        return retrieveAll(Arrays.asList(paths));
+    }
+
+    /**
+     * Retrieves an int without boxing, from a primitive slot of the cached resource.
+     * Numbers convert like {@link ConfigurationSection#getInt(String)}, for hot values reuse a compiled {@link NodePath}.
+     *
+     * @param path The node path.
+     * @param def  The value returned if the node holds no number.
+     * @return The retrieved value, or the default value if not found.
+     */
+    int retrieveInt(final @NotNull NodePath path, final int def);
+
+    /**
+     * Retrieves a long without boxing, from a primitive slot of the cached resource.
+     *
+     * @param path The node path.
+     * @param def  The value returned if the node holds no number.
+     * @return The retrieved value, or the default value if not found.
+     */
+    long retrieveLong(final @NotNull NodePath path, final long def);
+
+    /**
+     * Retrieves a double without boxing, from a primitive slot of the cached resource.
+     *
+     * @param path The node path.
+     * @param def  The value returned if the node holds no number.
+     * @return The retrieved value, or the default value if not found.
+     */
+    double retrieveDouble(final @NotNull NodePath path, final double def);
+
+    /**
+     * Retrieves a boolean without boxing, from a primitive slot of the cached resource.
+     *
+     * @param path The node path.
+     * @param def  The value returned if the node holds no boolean.
+     * @return The retrieved value, or the default value if not found.
+     */
+    boolean retrieveBoolean(final @NotNull NodePath path, final boolean def);
+
+    /**
+     * Stores an int without boxing. The value reaches the configuration when it's read generically or saved.
+     *
+     * @param path  The node path.
+     * @param value The value to store.
+     */
+    void storeInt(final @NotNull NodePath path, final int value);
+
+    /**
+     * Stores a long without boxing.
+     *
+     * @param path  The node path.
+     * @param value The value to store.
+     * @see #storeInt(NodePath, int)
+     */
+    void storeLong(final @NotNull NodePath path, final long value);
+
+    /**
+     * Stores a double without boxing.
+     *
+     * @param path  The node path.
+     * @param value The value to store.
+     * @see #storeInt(NodePath, int)
+     */
+    void storeDouble(final @NotNull NodePath path, final double value);
+
+    /**
+     * Stores a boolean without boxing.
+     *
+     * @param path  The node path.
+     * @param value The value to store.
+     * @see #storeInt(NodePath, int)
+     */
+    void storeBoolean(final @NotNull NodePath path, final boolean value);
+
+    /**
+     * Adds to a number atomically, so concurrent updaters don't need to read, modify and write it themselves.
+     * An absent value counts as zero.
+     *
+     * @param path  The node path.
+     * @param delta The amount to add.
+     * @return The new value.
+     * @throws IllegalStateException If the node holds a value that isn't a number, which is then left unchanged.
+     */
+    @CanIgnoreReturnValue
+    long increment(final @NotNull NodePath path, final long delta);
+
+    /**
+     * Adds to a number atomically, storing it as a double.
+     *
+     * @param path  The node path.
+     * @param delta The amount to add.
+     * @return The new value.
+     * @throws IllegalStateException If the node holds a value that isn't a number, which is then left unchanged.
+     * @see #increment(NodePath, long)
+     */
+    @CanIgnoreReturnValue
+    double increment(final @NotNull NodePath path, final double delta);
+
     /**
      * Retrieves a list of values associated with the specified node path and name, casting them to the specified type.
      *
@@ -264,7 +487,7 @@ public interface DataEditor<R> {
      *
      * @param parent The parent node path.
      * @param name   The name of the node.
-     * @return The retrieved ConfigurationSection, or null if not found.
+     * @return A detached copy of the retrieved ConfigurationSection, or null if not found.
      */
     @Nullable ConfigurationSection retrieveSection(final @NotNull NodePath parent, final @NotNull String name);
 
@@ -272,7 +495,7 @@ public interface DataEditor<R> {
      * Retrieves a ConfigurationSection associated with the specified node path and name.
      *
      * @param path   The node path.
-     * @return The retrieved ConfigurationSection, or null if not found.
+     * @return A detached copy of the retrieved ConfigurationSection, or null if not found.
      */
     default @Nullable ConfigurationSection retrieveSection(final @NotNull String path) {
         return retrieveSection(pathOnly(path), nameOnly(path));
@@ -283,7 +506,7 @@ public interface DataEditor<R> {
      *
      * @param parent The parent node path.
      * @param name   The name of the node.
-     * @return The created or existing ConfigurationSection.
+     * @return A detached copy of the created ConfigurationSection.
      */
     @CanIgnoreReturnValue
     @NotNull ConfigurationSection storeSection(final @NotNull NodePath parent, final @NotNull String name);
@@ -292,7 +515,7 @@ public interface DataEditor<R> {
      * Stores an empty ConfigurationSection in the specified node path.
      *
      * @param path   The node path.
-     * @return       The created or existing ConfigurationSection.
+     * @return       A detached copy of the created ConfigurationSection.
      */
     @CanIgnoreReturnValue
     default @NotNull ConfigurationSection storeSection(final @NotNull String path) {
@@ -305,7 +528,7 @@ public interface DataEditor<R> {
      * @param parent   The parent node path.
      * @param name     The name of the node.
      * @param children The children to be stored in the ConfigurationSection.
-     * @return The created or existing ConfigurationSection.
+     * @return A detached copy of the created ConfigurationSection.
      */
     @CanIgnoreReturnValue
     @NotNull ConfigurationSection storeSection(final @NotNull NodePath parent, final @NotNull String name, final @NotNull Map<?, ?> children);
@@ -315,7 +538,7 @@ public interface DataEditor<R> {
      *
      * @param path   The node path.
      * @param children The children to be stored in the ConfigurationSection.
-     * @return The created or existing ConfigurationSection.
+     * @return A detached copy of the created ConfigurationSection.
      */
     @CanIgnoreReturnValue
     default @NotNull ConfigurationSection storeSection(final @NotNull String path, final @NotNull Map<?, ?> children) {
@@ -0,0 +1,72 @@
+package dev.manere.dataapi.api;
+
+import dev.manere.dataapi.util.NodePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The DataIndex interface maps the values stored at one path to the resources holding them, such as a linked
+ * Discord ID to the player it belongs to, so lookups don't have to scan every resource.
+ * Values are compared by their string form, so {@code 42} and {@code "42"} are the same value.
+ * The index is built once, persisted next to the resources and kept up to date by {@link DataEditor#store(NodePath, Object)},
+ * from the moment the instance registers. An index the instance didn't unregister cleanly is rebuilt.
+ * Changes made outside of DataAPI, or through a retrieved {@link org.bukkit.configuration.ConfigurationSection},
+ * are only picked up by {@link #rebuild()}.
+ */
+public interface DataIndex {
+    /**
+     * Retrieves the parent folder of the indexed resources.
+     *
+     * @return The parent folder, or null for the data folder itself.
+     */
+    @Nullable String parent();
+
+    /**
+     * Retrieves the indexed path.
+     *
+     * @return The indexed path.
+     */
+    @NotNull NodePath path();
+
+    /**
+     * Retrieves the names of the resources holding the given value.
+     *
+     * @param value The value to look up.
+     * @return The resource names, for player resources their UUIDs.
+     */
+    @NotNull Set<String> lookup(final @NotNull Object value);
+
+    /**
+     * Retrieves the name of a resource holding the given value, for values unique to one resource.
+     *
+     * @param value The value to look up.
+     * @return The resource name, or null if no resource holds the value.
+     */
+    default @Nullable String lookupFirst(final @NotNull Object value) {
+        final Set<String> names = lookup(value);
+        return names.isEmpty() ? null : names.iterator().next();
+    }
+
+    /**
+     * Retrieves the resources holding the given value, {@link PlayerDataResource player resources} if named after a UUID.
+     *
+     * @param value The value to look up.
+     * @return The resources.
+     */
+    @NotNull List<DataResourceBase<?>> resources(final @NotNull Object value);
+
+    /**
+     * Retrieves the amount of indexed resources.
+     *
+     * @return The amount of resources holding a value at the indexed path.
+     */
+    int size();
+
+    /**
+     * Discards the index and builds it again from every resource in the folder.
+     */
+    void rebuild();
+}
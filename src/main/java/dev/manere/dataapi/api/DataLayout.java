@@ -0,0 +1,18 @@
+package dev.manere.dataapi.api;
+
+/**
+ * The DataLayout enum defines how player resources are laid out in their folder.
+ */
+public enum DataLayout {
+    /**
+     * Every player resource directly in its folder, such as {@code <uuid>.yml}.
+     */
+    FLAT,
+
+    /**
+     * Player resources spread over two levels of subfolders named after the first four hex digits of the UUID,
+     * such as {@code 1f/3a/<uuid>.yml}, keeping every directory small with millions of players.
+     * Files still in the flat layout are found until {@link DataAPI#migrate(String)} moves them.
+     */
+    SHARDED
+}
@@ -0,0 +1,97 @@
+package dev.manere.dataapi.api;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * The DataMetrics interface exposes the cost of DataAPI per resource type.
+ * Recording is based on striped counters and stays enabled at all times, snapshots are taken on demand.
+ */
+public interface DataMetrics {
+    /**
+     * The resource type of {@link DataResource}s.
+     */
+    String DATA = "data";
+
+    /**
+     * The resource type of {@link PlayerDataResource}s.
+     */
+    String PLAYER = "player";
+
+    /**
+     * Takes a snapshot of the metrics of every resource type.
+     *
+     * @return The snapshots, keyed by resource type.
+     */
+    @NotNull Map<String, Snapshot> snapshot();
+
+    /**
+     * Takes a snapshot of the metrics of a resource type.
+     *
+     * @param type The resource type, such as {@link #DATA} or {@link #PLAYER}.
+     * @return The snapshot, empty if nothing was recorded for the type.
+     */
+    @NotNull Snapshot snapshot(final @NotNull String type);
+
+    /**
+     * Resets every counter and histogram.
+     */
+    void reset();
+
+    /**
+     * The metrics of a resource type at the time of the snapshot.
+     *
+     * @param type                  The resource type.
+     * @param load                  The latency of reading and parsing resources.
+     * @param save                  The latency of serializing and writing resources.
+     * @param bytesRead             The amount of bytes read from disk.
+     * @param bytesWritten          The amount of bytes written to disk.
+     * @param cacheHits             The amount of document lookups served from memory.
+     * @param cacheMisses           The amount of document lookups which had to read the disk.
+     * @param dirty                 The amount of resources waiting to be flushed.
+     * @param mainThreadBlockedNanos The time the server main thread spent waiting on loads and saves.
+     */
+    record Snapshot(
+            @NotNull String type,
+            @NotNull Latency load,
+            @NotNull Latency save,
+            long bytesRead,
+            long bytesWritten,
+            long cacheHits,
+            long cacheMisses,
+            int dirty,
+            long mainThreadBlockedNanos
+    ) {
+        /**
+         * Retrieves the share of document lookups served from memory.
+         *
+         * @return The cache hit ratio between 0 and 1, or 0 if there were no lookups.
+         */
+        public double cacheHitRatio() {
+            final long lookups = cacheHits + cacheMisses;
+            return lookups == 0 ? 0 : (double) cacheHits / lookups;
+        }
+    }
+
+    /**
+     * A latency histogram at the time of the snapshot.
+     * Percentiles are the upper bounds of power-of-two buckets, so they overestimate by at most a factor of two.
+     *
+     * @param count      The amount of recorded operations.
+     * @param totalNanos The total time of all operations.
+     * @param maxNanos   The slowest operation.
+     * @param p50Nanos   The median.
+     * @param p99Nanos   The 99th percentile.
+     */
+    record Latency(long count, long totalNanos, long maxNanos, long p50Nanos, long p99Nanos) {
+        /**
+         * Retrieves the average latency.
+         *
+         * @return The mean in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+    }
+}
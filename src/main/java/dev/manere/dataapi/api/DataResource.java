@@ -22,6 +22,12 @@ public interface DataResource extends DataResourceBase<DataResource> {
     @Override
     @NotNull DataEditor<DataResource> editor();
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull AsyncDataResource<DataResource> async();
+
     /**
      * {@inheritDoc}
      */
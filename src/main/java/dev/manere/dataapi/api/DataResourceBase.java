@@ -13,6 +13,7 @@ import java.io.File;
 public interface DataResourceBase<D> {
     /**
      * Saves changes made to the data resource.
+     * Changes are written in the background anyway, this flushes them immediately on the calling thread.
      *
      * @return The updated data resource instance.
      */
@@ -27,7 +28,14 @@ public interface DataResourceBase<D> {
     @NotNull DataEditor<D> editor();
 
     /**
-     * Reloads the content of the data resource.
+     * Retrieves the asynchronous view of the data resource, which never touches the disk on the calling thread.
+     *
+     * @return An AsyncDataResource instance.
+     */
+    @NotNull AsyncDataResource<D> async();
+
+    /**
+     * Reloads the content of the data resource, discarding unsaved changes.
      */
     @CanIgnoreReturnValue
     @NotNull D reload();
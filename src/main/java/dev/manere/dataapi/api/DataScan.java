@@ -0,0 +1,95 @@
+package dev.manere.dataapi.api;
+
+import dev.manere.dataapi.impl.DataScanImpl;
+import dev.manere.dataapi.util.NodePath;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * The DataScan interface provides bulk, read-only queries over every resource in a folder,
+ * such as leaderboards across all player files.
+ * Streams are lazy: the folder is enumerated as the stream is consumed and files are parsed in parallel batches.
+ * Scanned files are not added to the resource cache. Streams hold the folder open and should be closed,
+ * preferably with try-with-resources.
+ */
+public interface DataScan {
+    /**
+     * Streams every resource in the folder without parsing them.
+     * Resources named after a UUID are {@link PlayerDataResource player resources}, any other is a {@link DataResource}.
+     *
+     * @return A lazy stream of resources.
+     */
+    @NotNull Stream<DataResourceBase<?>> resources();
+
+    /**
+     * Parses every resource in the folder and applies the projection to its contents.
+     * Resources for which the projection returns null are skipped.
+     *
+     * @param projection The projection applied to each resource.
+     * @param <V>        The projected type.
+     * @return A lazy stream of results, in directory order.
+     */
+    <V> @NotNull Stream<Result<V>> project(final @NotNull Function<? super ConfigurationSection, ? extends V> projection);
+
+    /**
+     * Retrieves the value at the given path of every resource in the folder.
+     * Resources without a value of the given type at the path are skipped.
+     *
+     * @param path The path of the value.
+     * @param type The class of the value.
+     * @param <V>  The value type.
+     * @return A lazy stream of results, in directory order.
+     */
+    default <V> @NotNull Stream<Result<V>> project(final @NotNull NodePath path, final @NotNull Class<V> type) {
+        return project(section -> {
+            final Object value = section.get(path.key());
+            return type.isInstance(value) ? type.cast(value) : null;
+        });
+    }
+
+    /**
+     * Retrieves the resources holding the greatest values at the given path, such as the top players by kills.
+     * Only the current top results are kept in memory while scanning.
+     *
+     * @param path  The path of the value.
+     * @param type  The class of the value.
+     * @param order The order of the values.
+     * @param limit The maximum amount of results.
+     * @param <V>   The value type.
+     * @return The results, greatest first.
+     */
+    default <V> @NotNull List<Result<V>> top(final @NotNull NodePath path, final @NotNull Class<V> type, final @NotNull Comparator<? super V> order, final int limit) {
+        try (final Stream<Result<V>> results = project(path, type)) {
+            return results.collect(top(limit, Comparator.comparing(Result::value, order)));
+        }
+    }
+
+    /**
+     * Creates a collector keeping only the greatest elements, using a bounded heap instead of sorting every element.
+     *
+     * @param limit The maximum amount of elements.
+     * @param order The order of the elements.
+     * @param <T>   The element type.
+     * @return The collector, producing the elements greatest first.
+     */
+    static <T> @NotNull Collector<T, ?, List<T>> top(final int limit, final @NotNull Comparator<? super T> order) {
+        return DataScanImpl.top(limit, order);
+    }
+
+    /**
+     * A projected value of a scanned resource.
+     *
+     * @param name     The name of the resource, the UUID for player resources.
+     * @param resource The scanned resource, a {@link PlayerDataResource} for player resources.
+     * @param value    The projected value.
+     * @param <V>      The value type.
+     */
+    record Result<V>(@NotNull String name, @NotNull DataResourceBase<?> resource, @Nullable V value) {}
+}
@@ -23,6 +23,12 @@ public interface PlayerDataResource extends DataResourceBase<PlayerDataResource>
     @Override
     @NotNull DataEditor<PlayerDataResource> editor();
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull AsyncDataResource<PlayerDataResource> async();
+
     /**
      * {@inheritDoc}
      */
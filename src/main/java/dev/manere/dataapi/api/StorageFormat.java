@@ -0,0 +1,94 @@
+package dev.manere.dataapi.api;
+
+import dev.manere.dataapi.impl.BinaryStorageFormat;
+import dev.manere.dataapi.impl.YamlStorageFormat;
+import dev.manere.dataapi.util.NodePath;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The StorageFormat interface defines how data resources are encoded on disk.
+ * Resources are always edited as a {@link FileConfiguration}, the format only decides how it is read and written.
+ */
+public interface StorageFormat {
+    /**
+     * Retrieves the YAML format, the default format of DataAPI.
+     *
+     * @return The YAML StorageFormat.
+     */
+    static @NotNull StorageFormat yaml() {
+        return YamlStorageFormat.INSTANCE;
+    }
+
+    /**
+     * Retrieves the compact binary format, which parses several times faster than YAML.
+     * Comments, headers and footers are not stored by this format.
+     *
+     * @return The binary StorageFormat.
+     */
+    static @NotNull StorageFormat binary() {
+        return BinaryStorageFormat.INSTANCE;
+    }
+
+    /**
+     * Retrieves the file extension of resources stored in this format, without the leading dot.
+     *
+     * @return The file extension.
+     */
+    @NotNull String extension();
+
+    /**
+     * Checks whether this format decodes resources straight from their content, without first copying it
+     * into another form such as text. Only resources of such formats are memory-mapped, see {@link DataAPIBuilder#mapThreshold(long)}.
+     *
+     * @return True if the content is decoded in place.
+     */
+    default boolean decodesInPlace() {
+        return false;
+    }
+
+    /**
+     * Decodes a resource.
+     *
+     * @param content The encoded resource, empty for a new resource.
+     * @return The decoded configuration.
+     * @throws IOException If the content is malformed.
+     */
+    @NotNull FileConfiguration read(final @NotNull ByteBuffer content) throws IOException;
+
+    /**
+     * Decodes only the values at the given paths of a resource.
+     * The default implementation decodes the whole resource, formats should override it to skip unrequested values.
+     *
+     * @param content The encoded resource.
+     * @param paths   The paths to decode.
+     * @return The decoded values by path, without entries for absent paths.
+     * @throws IOException If the content is malformed.
+     */
+    default @NotNull Map<NodePath, Object> project(final @NotNull ByteBuffer content, final @NotNull Set<NodePath> paths) throws IOException {
+        final FileConfiguration configuration = read(content);
+        final Map<NodePath, Object> values = new LinkedHashMap<>();
+
+        for (final NodePath path : paths) {
+            final Object value = configuration.get(path.key());
+            if (value != null) values.put(path, value);
+        }
+
+        return values;
+    }
+
+    /**
+     * Encodes a resource.
+     *
+     * @param configuration The configuration to encode.
+     * @return The encoded resource.
+     * @throws IOException If the configuration holds values this format can't encode.
+     */
+    byte @NotNull [] write(final @NotNull FileConfiguration configuration) throws IOException;
+}
@@ -0,0 +1,46 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.AsyncDataEditor;
+import dev.manere.dataapi.api.DataResourceBase;
+import dev.manere.dataapi.util.NodePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+
+public record AsyncDataEditorImpl<R extends DataResourceBase<R>>(DataAPIImpl api, R resource) implements AsyncDataEditor<R> {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull R resource() {
+        return resource;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<@Nullable Object> retrieveAsync(final @NotNull NodePath parent, final @NotNull String name) {
+        return api.executors().supply(() -> resource.editor().retrieve(parent, name));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull <V> CompletableFuture<@Nullable V> retrieveAsync(final @NotNull NodePath parent, final @NotNull String name, final @NotNull Class<V> type) {
+        return api.executors().supply(() -> resource.editor().retrieve(parent, name, type));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> storeAsync(final @NotNull NodePath parent, final @NotNull String name, final @Nullable Object value) {
+        return api.executors().supply(() -> {
+            resource.editor().store(parent, name, value);
+            return null;
+        });
+    }
+}
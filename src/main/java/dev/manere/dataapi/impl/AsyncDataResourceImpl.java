@@ -0,0 +1,58 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.AsyncDataEditor;
+import dev.manere.dataapi.api.AsyncDataResource;
+import dev.manere.dataapi.api.DataEditor;
+import dev.manere.dataapi.api.DataResourceBase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+
+public record AsyncDataResourceImpl<D extends DataResourceBase<D>>(DataAPIImpl api, D resource) implements AsyncDataResource<D> {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull D resource() {
+        return resource;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull AsyncDataEditor<D> editor() {
+        return new AsyncDataEditorImpl<>(api, resource);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<DataEditor<D>> loadAsync() {
+        return api.executors().supply(() -> {
+            api.cache().document(resource);
+            return resource.editor();
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<D> saveAsync() {
+        return api.executors().supply(resource::save);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<D> reloadAsync() {
+        return api.executors().supply(() -> {
+            resource.reload();
+            api.cache().document(resource);
+            return resource;
+        });
+    }
+}
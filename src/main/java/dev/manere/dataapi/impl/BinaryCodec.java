@@ -0,0 +1,511 @@
+package dev.manere.dataapi.impl;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes configuration values as tagged binary values.
+ * Every value starts with a one byte tag, containers (lists, sections, serializable objects) are prefixed with their
+ * byte length so readers can skip them without decoding. Section keys are either written inline or as indices into
+ * an interned key table.
+ */
+public class BinaryCodec {
+    public static final byte NULL = 0;
+    public static final byte FALSE = 1;
+    public static final byte TRUE = 2;
+    public static final byte BYTE = 3;
+    public static final byte SHORT = 4;
+    public static final byte INT = 5;
+    public static final byte LONG = 6;
+    public static final byte FLOAT = 7;
+    public static final byte DOUBLE = 8;
+    public static final byte CHAR = 9;
+    public static final byte STRING = 10;
+    public static final byte BIG_INTEGER = 11;
+    public static final byte LIST = 12;
+    public static final byte SECTION = 13;
+    public static final byte SERIALIZABLE = 14;
+
+    /**
+     * Writes tagged values into a growing byte array.
+     */
+    public static class Encoder {
+        private final Map<String, Integer> keys;
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        /**
+         * Creates an encoder.
+         *
+         * @param internKeys True to write section keys as indices into {@link #keys()}, false to write them inline.
+         */
+        public Encoder(final boolean internKeys) {
+            this.keys = internKeys ? new LinkedHashMap<>() : null;
+        }
+
+        /**
+         * Retrieves the interned key table, in index order.
+         *
+         * @return The interned keys.
+         */
+        public @NotNull Collection<String> keys() {
+            return keys == null ? List.of() : keys.keySet();
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public byte @NotNull [] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        /**
+         * Writes a tagged value.
+         *
+         * @param value The value to write.
+         * @throws IOException If the value type is not supported.
+         */
+        public void value(final @Nullable Object value) throws IOException {
+            if (value == null) {
+                write(NULL);
+            } else if (value instanceof Boolean bool) {
+                write(bool ? TRUE : FALSE);
+            } else if (value instanceof Byte number) {
+                write(BYTE);
+                write(number);
+            } else if (value instanceof Short number) {
+                write(SHORT);
+                writeShort(number);
+            } else if (value instanceof Integer number) {
+                write(INT);
+                writeInt(number);
+            } else if (value instanceof Long number) {
+                write(LONG);
+                writeLong(number);
+            } else if (value instanceof Float number) {
+                write(FLOAT);
+                writeInt(Float.floatToIntBits(number));
+            } else if (value instanceof Double number) {
+                write(DOUBLE);
+                writeLong(Double.doubleToLongBits(number));
+            } else if (value instanceof Character character) {
+                write(CHAR);
+                writeShort((short) character.charValue());
+            } else if (value instanceof String string) {
+                write(STRING);
+                string(string);
+            } else if (value instanceof BigInteger number) {
+                write(BIG_INTEGER);
+                string(number.toString());
+            } else if (value instanceof ConfigurationSection section) {
+                section(section);
+            } else if (value instanceof Map<?, ?> map) {
+                map(SECTION, map);
+            } else if (value instanceof ConfigurationSerializable serializable) {
+                final Map<String, Object> serialized = new LinkedHashMap<>();
+                serialized.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+                serialized.putAll(serializable.serialize());
+                map(SERIALIZABLE, serialized);
+            } else if (value instanceof Collection<?> collection) {
+                list(collection);
+            } else if (value instanceof Object[] array) {
+                list(Arrays.asList(array));
+            } else {
+                throw new IOException("Unsupported value type: " + value.getClass().getName());
+            }
+        }
+
+        /**
+         * Writes a section with all of its children.
+         *
+         * @param section The section to write.
+         * @throws IOException If a value type is not supported.
+         */
+        public void section(final @NotNull ConfigurationSection section) throws IOException {
+            map(SECTION, section.getValues(false));
+        }
+
+        private void map(final byte tag, final @NotNull Map<?, ?> map) throws IOException {
+            write(tag);
+            final int length = reserve();
+            varint(map.size());
+
+            for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                key(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+
+            patch(length);
+        }
+
+        private void list(final @NotNull Collection<?> collection) throws IOException {
+            write(LIST);
+            final int length = reserve();
+            varint(collection.size());
+
+            for (final Object element : collection) value(element);
+
+            patch(length);
+        }
+
+        /**
+         * Writes a section key, interned or inline.
+         *
+         * @param key The key to write.
+         */
+        public void key(final @NotNull String key) {
+            if (keys == null) {
+                string(key);
+                return;
+            }
+
+            Integer index = keys.get(key);
+            if (index == null) {
+                index = keys.size();
+                keys.put(key, index);
+            }
+
+            varint(index);
+        }
+
+        /**
+         * Writes a length-prefixed UTF-8 string.
+         *
+         * @param string The string to write.
+         */
+        public void string(final @NotNull String string) {
+            final byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            varint(encoded.length);
+            write(encoded);
+        }
+
+        /**
+         * Writes an unsigned variable-length integer.
+         *
+         * @param value The value to write.
+         */
+        public void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+
+            write((byte) value);
+        }
+
+        public void write(final byte value) {
+            ensure(1);
+            bytes[size++] = value;
+        }
+
+        public void write(final byte @NotNull [] values) {
+            ensure(values.length);
+            System.arraycopy(values, 0, bytes, size, values.length);
+            size += values.length;
+        }
+
+        public void writeShort(final short value) {
+            write((byte) (value >>> 8));
+            write((byte) value);
+        }
+
+        public void writeInt(final int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        public void writeLong(final long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        private int reserve() {
+            final int position = size;
+            writeInt(0);
+            return position;
+        }
+
+        private void patch(final int position) {
+            final int length = size - position - 4;
+            bytes[position] = (byte) (length >>> 24);
+            bytes[position + 1] = (byte) (length >>> 16);
+            bytes[position + 2] = (byte) (length >>> 8);
+            bytes[position + 3] = (byte) length;
+        }
+
+        private void ensure(final int extra) {
+            if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    /**
+     * Reads tagged values from a buffer, heap or memory-mapped.
+     */
+    public static class Decoder {
+        private final ByteBuffer in;
+        private final String[] keys;
+
+        /**
+         * Creates a decoder.
+         *
+         * @param in   The buffer to read from, starting at its position.
+         * @param keys The interned key table, or null if keys are written inline.
+         */
+        public Decoder(final @NotNull ByteBuffer in, final String @Nullable [] keys) {
+            this.in = in;
+            this.keys = keys;
+        }
+
+        public @NotNull ByteBuffer buffer() {
+            return in;
+        }
+
+        /**
+         * Creates a decoder sharing the key table, reading from the given position of the same content.
+         *
+         * @param position The position to read from.
+         * @return The decoder, independent of this decoder's position.
+         */
+        public @NotNull Decoder at(final int position) {
+            return new Decoder(in.duplicate().position(position), keys);
+        }
+
+        /**
+         * Reads a tagged value. Sections are returned as maps, like YAML lists of maps.
+         *
+         * @return The value.
+         * @throws IOException If the content is malformed.
+         */
+        public @Nullable Object value() throws IOException {
+            try {
+                return value(in.get());
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Truncated binary resource", e);
+            }
+        }
+
+        private @Nullable Object value(final byte tag) throws IOException {
+            return switch (tag) {
+                case NULL -> null;
+                case FALSE -> false;
+                case TRUE -> true;
+                case BYTE -> in.get();
+                case SHORT -> in.getShort();
+                case INT -> in.getInt();
+                case LONG -> in.getLong();
+                case FLOAT -> in.getFloat();
+                case DOUBLE -> in.getDouble();
+                case CHAR -> in.getChar();
+                case STRING -> string();
+                case BIG_INTEGER -> {
+                    try {
+                        yield new BigInteger(string());
+                    } catch (NumberFormatException e) {
+                        throw new IOException(e);
+                    }
+                }
+                case LIST -> list();
+                case SECTION -> map();
+                case SERIALIZABLE -> {
+                    try {
+                        yield ConfigurationSerialization.deserializeObject(map());
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(e);
+                    }
+                }
+                default -> throw new IOException("Unknown value tag " + tag + " at offset " + (in.position() - 1));
+            };
+        }
+
+        /**
+         * Reads a value and stores it under the given key of the target section.
+         * Nested sections are created as configuration sections, the same way YAML loads them.
+         *
+         * @param target The section to store into.
+         * @param key    The key to store under.
+         * @throws IOException If the content is malformed.
+         */
+        public void into(final @NotNull ConfigurationSection target, final @NotNull String key) throws IOException {
+            try {
+                final byte tag = in.get();
+
+                if (tag == SECTION) {
+                    in.getInt();
+                    section(target.createSection(key));
+                } else {
+                    target.set(key, value(tag));
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Truncated binary resource", e);
+            }
+        }
+
+        /**
+         * Reads the children of a section into the target, the tag and length must already be consumed.
+         *
+         * @param target The section to fill.
+         * @throws IOException If the content is malformed.
+         */
+        public void section(final @NotNull ConfigurationSection target) throws IOException {
+            try {
+                final int count = count();
+                for (int i = 0; i < count; i++) into(target, key());
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Truncated binary resource", e);
+            }
+        }
+
+        private @NotNull Map<String, Object> map() throws IOException {
+            in.getInt();
+            final int count = count();
+            final Map<String, Object> map = new LinkedHashMap<>(Math.max(16, count * 2));
+
+            for (int i = 0; i < count; i++) {
+                final String key = key();
+                map.put(key, value());
+            }
+
+            return map;
+        }
+
+        private @NotNull List<Object> list() throws IOException {
+            in.getInt();
+            final int count = count();
+            final List<Object> list = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) list.add(value());
+
+            return list;
+        }
+
+        /**
+         * Skips the next tagged value without decoding it.
+         *
+         * @throws IOException If the content is malformed.
+         */
+        public void skip() throws IOException {
+            try {
+                final byte tag = in.get();
+
+                switch (tag) {
+                    case NULL, FALSE, TRUE -> {}
+                    case BYTE -> skip(1);
+                    case SHORT, CHAR -> skip(2);
+                    case INT, FLOAT -> skip(4);
+                    case LONG, DOUBLE -> skip(8);
+                    case STRING, BIG_INTEGER -> skip(varint());
+                    case LIST, SECTION, SERIALIZABLE -> skip(in.getInt());
+                    default -> throw new IOException("Unknown value tag " + tag + " at offset " + (in.position() - 1));
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated binary resource", e);
+            }
+        }
+
+        private void skip(final int bytes) throws IOException {
+            in.position(in.position() + length(bytes));
+        }
+
+        /**
+         * Checks a length read from the content against the bytes left, so malformed content fails to decode
+         * instead of skipping past the end or allocating for data that isn't there.
+         *
+         * @param length The length in bytes.
+         * @return The length.
+         * @throws IOException If the length is negative or exceeds the remaining bytes.
+         */
+        private int length(final int length) throws IOException {
+            if (length < 0 || length > in.remaining()) throw new IOException("Invalid length " + length + " at offset " + in.position() + ", " + in.remaining() + " bytes left");
+            return length;
+        }
+
+        /**
+         * Reads the element count of a list, section or table. Every element takes at least one byte,
+         * so a count past the remaining bytes is malformed.
+         *
+         * @return The count.
+         * @throws IOException If the count is negative or exceeds the remaining bytes.
+         */
+        public int count() throws IOException {
+            final int count = varint();
+            if (count < 0 || count > in.remaining()) throw new IOException("Invalid count " + count + " at offset " + in.position() + ", " + in.remaining() + " bytes left");
+            return count;
+        }
+
+        /**
+         * Reads a section key, interned or inline.
+         *
+         * @return The key.
+         * @throws IOException If the key index is out of bounds.
+         */
+        public @NotNull String key() throws IOException {
+            if (keys == null) return string();
+
+            final int index = varint();
+            if (index >= keys.length) throw new IOException("Unknown key index " + index);
+            return keys[index];
+        }
+
+        /**
+         * Reads a length-prefixed UTF-8 string.
+         *
+         * @return The string.
+         * @throws IOException If the length exceeds the remaining bytes.
+         */
+        public @NotNull String string() throws IOException {
+            final int length = length(varint());
+
+            if (in.hasArray()) {
+                final String string = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+                skip(length);
+                return string;
+            }
+
+            final byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Reads an unsigned variable-length integer.
+         *
+         * @return The value.
+         * @throws IOException If the content ends within the value or it takes more than five bytes.
+         */
+        public int varint() throws IOException {
+            int value = 0;
+            int shift = 0;
+            byte current;
+
+            do {
+                if (shift > 28) throw new IOException("Malformed varint at offset " + in.position());
+                if (!in.hasRemaining()) throw new IOException("Truncated binary resource");
+
+                current = in.get();
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+
+            return value;
+        }
+    }
+}
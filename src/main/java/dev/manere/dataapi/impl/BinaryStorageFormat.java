@@ -0,0 +1,214 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.StorageFormat;
+import dev.manere.dataapi.util.NodePath;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact binary format: a magic number and version, an interned table of every section key,
+ * then the root section encoded by {@link BinaryCodec}.
+ */
+public class BinaryStorageFormat implements StorageFormat {
+    public static final BinaryStorageFormat INSTANCE = new BinaryStorageFormat();
+
+    private static final int MAGIC = 0x44415049;
+    private static final byte VERSION = 1;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull String extension() {
+        return "dat";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean decodesInPlace() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull FileConfiguration read(final @NotNull ByteBuffer content) throws IOException {
+        if (!content.hasRemaining()) return new YamlConfiguration();
+
+        final boolean lazy = content.remaining() >= LazyConfiguration.THRESHOLD;
+        final YamlConfiguration configuration = lazy ? new LazyConfiguration() : new YamlConfiguration();
+
+        try {
+            final BinaryCodec.Decoder decoder = decoder(content);
+
+            if (content.get() != BinaryCodec.SECTION) throw new IOException("Root of binary resource is not a section");
+            content.getInt();
+
+            if (lazy) defer(decoder, (LazyConfiguration) configuration);
+            else decoder.section(configuration);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated binary resource", e);
+        }
+
+        return configuration;
+    }
+
+    /**
+     * Reads the scalars of the root section and skips every length-prefixed value by its length,
+     * deferring it until first access.
+     */
+    private void defer(final @NotNull BinaryCodec.Decoder decoder, final @NotNull LazyConfiguration configuration) throws IOException {
+        final ByteBuffer in = decoder.buffer();
+        final int count = decoder.count();
+
+        for (int i = 0; i < count; i++) {
+            final String key = decoder.key();
+            final byte tag = in.get(in.position());
+
+            // Keys holding the path separator are stored nested, they can't be deferred as one top-level entry.
+            if ((tag != BinaryCodec.SECTION && tag != BinaryCodec.LIST && tag != BinaryCodec.SERIALIZABLE) || key.indexOf('.') >= 0) {
+                decoder.into(configuration, key);
+                continue;
+            }
+
+            final int position = in.position();
+            decoder.skip();
+
+            configuration.set(key, LazyConfiguration.PLACEHOLDER);
+            configuration.defer(key, (target, name) -> decoder.at(position).into(target, name));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Map<NodePath, Object> project(final @NotNull ByteBuffer content, final @NotNull Set<NodePath> paths) throws IOException {
+        final Map<NodePath, Object> values = new LinkedHashMap<>();
+        if (!content.hasRemaining() || paths.isEmpty()) return values;
+
+        final Map<String, NodePath> wanted = new HashMap<>();
+        for (final NodePath path : paths) wanted.put(path.key(), path);
+
+        try {
+            final BinaryCodec.Decoder decoder = decoder(content);
+
+            if (content.get() != BinaryCodec.SECTION) throw new IOException("Root of binary resource is not a section");
+            content.getInt();
+
+            project(decoder, "", wanted, new MemoryConfiguration(), values);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated binary resource", e);
+        }
+
+        return values;
+    }
+
+    /**
+     * Walks the children of a section, decoding wanted values and skipping everything else by its length prefix.
+     *
+     * @return True once every wanted value was found.
+     */
+    private boolean project(final @NotNull BinaryCodec.Decoder decoder, final @NotNull String prefix, final @NotNull Map<String, NodePath> wanted, final @NotNull MemoryConfiguration scratch, final @NotNull Map<NodePath, Object> values) throws IOException {
+        final ByteBuffer in = decoder.buffer();
+        final int count = decoder.count();
+
+        for (int i = 0; i < count; i++) {
+            final String key = prefix + decoder.key();
+            final NodePath path = wanted.get(key);
+
+            if (path != null) {
+                decoder.into(scratch, key);
+
+                final Object value = scratch.get(key);
+                values.put(path, value);
+                if (value instanceof ConfigurationSection) nested(wanted, key, scratch, values);
+                if (values.size() == wanted.size()) return true;
+            } else if (in.get(in.position()) == BinaryCodec.SECTION && descends(wanted, key)) {
+                in.get();
+                in.getInt();
+                if (project(decoder, key + ".", wanted, scratch, values)) return true;
+            } else {
+                decoder.skip();
+            }
+        }
+
+        return false;
+    }
+
+    private static void nested(final @NotNull Map<String, NodePath> wanted, final @NotNull String key, final @NotNull MemoryConfiguration scratch, final @NotNull Map<NodePath, Object> values) {
+        for (final Map.Entry<String, NodePath> entry : wanted.entrySet()) {
+            if (!descends(entry.getKey(), key)) continue;
+
+            final Object value = scratch.get(entry.getKey());
+            if (value != null) values.put(entry.getValue(), value);
+        }
+    }
+
+    private static boolean descends(final @NotNull Map<String, NodePath> wanted, final @NotNull String key) {
+        for (final String path : wanted.keySet()) {
+            if (descends(path, key)) return true;
+        }
+
+        return false;
+    }
+
+    private static boolean descends(final @NotNull String path, final @NotNull String key) {
+        return path.length() > key.length() && path.startsWith(key) && path.charAt(key.length()) == '.';
+    }
+
+    /**
+     * Reads the header and key table, leaving the buffer positioned at the root section.
+     *
+     * @param content The encoded resource.
+     * @return A decoder over the content using the key table.
+     * @throws IOException If the header is malformed.
+     */
+    public @NotNull BinaryCodec.Decoder decoder(final @NotNull ByteBuffer content) throws IOException {
+        if (content.getInt() != MAGIC) throw new IOException("Not a DataAPI binary resource");
+
+        final byte version = content.get();
+        if (version != VERSION) throw new IOException("Unsupported binary resource version " + version);
+
+        final BinaryCodec.Decoder header = new BinaryCodec.Decoder(content, null);
+        final String[] keys = new String[header.count()];
+        for (int i = 0; i < keys.length; i++) keys[i] = header.string();
+
+        return new BinaryCodec.Decoder(content, keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte @NotNull [] write(final @NotNull FileConfiguration configuration) throws IOException {
+        final BinaryCodec.Encoder body = new BinaryCodec.Encoder(true);
+        body.section(configuration);
+
+        final Collection<String> keys = body.keys();
+        final BinaryCodec.Encoder out = new BinaryCodec.Encoder(false);
+
+        out.writeInt(MAGIC);
+        out.write(VERSION);
+        out.varint(keys.size());
+        for (final String key : keys) out.string(key);
+        out.write(body.toByteArray());
+
+        return out.toByteArray();
+    }
+}
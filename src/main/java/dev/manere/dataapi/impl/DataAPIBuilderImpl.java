@@ -2,18 +2,70 @@ package dev.manere.dataapi.impl;
 
 import dev.manere.dataapi.api.DataAPI;
 import dev.manere.dataapi.api.DataAPIBuilder;
+import dev.manere.dataapi.api.DataLayout;
+import dev.manere.dataapi.api.StorageFormat;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 public class DataAPIBuilderImpl implements DataAPIBuilder {
     private JavaPlugin source;
     private String folderName;
     private String root;
+    private StorageFormat format;
+    private int cacheSize;
+    private Duration cacheIdleTime;
+    private Duration flushInterval;
+    private int flushThreshold;
+    private boolean syncWrites;
+    private boolean groupCommit;
+    private int ioThreads;
+    private int saveThreads;
+    private ExecutorService ioExecutor;
+    private boolean virtualThreads;
+    private int maxConcurrentIo;
+    private boolean mainThreadCallbacks;
+    private Duration metricsInterval;
+    private File metricsFile;
+    private Duration sessionGracePeriod;
+    private int scanParallelism;
+    private DataLayout layout;
+    private Set<String> segmented;
+    private long mapThreshold;
+    private boolean deltaSaves;
+    private Duration logSyncInterval;
 
     public DataAPIBuilderImpl() {
         this.source = null;
         this.folderName = null;
         this.root = "~";
+        this.format = StorageFormat.yaml();
+        this.cacheSize = 2048;
+        this.cacheIdleTime = Duration.ofMinutes(10);
+        this.flushInterval = Duration.ofSeconds(5);
+        this.flushThreshold = 64;
+        this.syncWrites = true;
+        this.groupCommit = true;
+        this.ioThreads = 4;
+        this.saveThreads = 8;
+        this.ioExecutor = null;
+        this.virtualThreads = false;
+        this.maxConcurrentIo = 256;
+        this.mainThreadCallbacks = false;
+        this.metricsInterval = null;
+        this.metricsFile = null;
+        this.sessionGracePeriod = null;
+        this.scanParallelism = Runtime.getRuntime().availableProcessors();
+        this.layout = DataLayout.FLAT;
+        this.segmented = Set.of();
+        this.mapThreshold = 1024 * 1024;
+        this.deltaSaves = false;
+        this.logSyncInterval = null;
     }
 
     /**
@@ -43,13 +95,229 @@ public class DataAPIBuilderImpl implements DataAPIBuilder {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder format(final @NotNull StorageFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder cacheSize(final int size) {
+        this.cacheSize = size;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder cacheIdleTime(final @NotNull Duration idleTime) {
+        this.cacheIdleTime = idleTime;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder flushInterval(final @NotNull Duration interval) {
+        this.flushInterval = interval;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder flushThreshold(final int threshold) {
+        this.flushThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder syncWrites(final boolean syncWrites) {
+        this.syncWrites = syncWrites;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder groupCommit(final boolean groupCommit) {
+        this.groupCommit = groupCommit;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder ioThreads(final int threads) {
+        this.ioThreads = threads;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder saveThreads(final int threads) {
+        this.saveThreads = threads;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder ioExecutor(final @NotNull ExecutorService executor) {
+        this.ioExecutor = executor;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder virtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder maxConcurrentIo(final int maxConcurrentIo) {
+        this.maxConcurrentIo = maxConcurrentIo;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder mainThreadCallbacks(final boolean mainThreadCallbacks) {
+        this.mainThreadCallbacks = mainThreadCallbacks;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder metricsReporter(final @NotNull Duration interval, final @Nullable File file) {
+        this.metricsInterval = interval;
+        this.metricsFile = file;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder playerSessions(final @NotNull Duration gracePeriod) {
+        this.sessionGracePeriod = gracePeriod;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder scanParallelism(final int parallelism) {
+        this.scanParallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder layout(final @NotNull DataLayout layout) {
+        this.layout = layout;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder segmented(final @NotNull String @NotNull ... parents) {
+        this.segmented = Set.of(parents);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder mapThreshold(final long bytes) {
+        this.mapThreshold = bytes;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder deltaSaves(final boolean deltaSaves) {
+        this.deltaSaves = deltaSaves;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataAPIBuilder writeAheadLog(final @Nullable Duration syncInterval) {
+        this.logSyncInterval = syncInterval;
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public @NotNull DataAPI register() {
-        final DataAPI api = DataAPI.init(source, folderName, root);
+        final DataAPIImpl api = new DataAPIImpl();
+
+        api.source(source);
+        api.folder(folderName == null ? source.getName() : folderName);
+        api.rootChar(root);
+        api.format(format);
+        api.cacheSize(cacheSize);
+        api.cacheIdleTime(cacheIdleTime);
+        api.flushInterval(flushInterval);
+        api.flushThreshold(flushThreshold);
+        api.syncWrites(syncWrites);
+        api.groupCommit(groupCommit);
+        api.ioThreads(ioThreads);
+        api.saveThreads(saveThreads);
+        api.ioExecutor(ioExecutor);
+        api.virtualThreads(virtualThreads);
+        api.maxConcurrentIo(maxConcurrentIo);
+        api.mainThreadCallbacks(mainThreadCallbacks);
+        api.metricsReporter(metricsInterval, metricsFile);
+        api.playerSessions(sessionGracePeriod);
+        api.scanParallelism(scanParallelism);
+        api.layout(layout);
+        api.segmented(segmented);
+        api.mapThreshold(mapThreshold);
+        api.deltaSaves(deltaSaves);
+        api.writeAheadLog(logSyncInterval);
         api.register();
+
         return api;
     }
 }
@@ -1,30 +1,85 @@
 package dev.manere.dataapi.impl;
 
 import dev.manere.dataapi.api.DataAPI;
+import dev.manere.dataapi.api.DataIndex;
+import dev.manere.dataapi.api.DataLayout;
+import dev.manere.dataapi.api.DataMetrics;
 import dev.manere.dataapi.api.DataResource;
+import dev.manere.dataapi.api.DataScan;
 import dev.manere.dataapi.api.PlayerDataResource;
+import dev.manere.dataapi.api.StorageFormat;
 import dev.manere.dataapi.util.FileResources;
+import dev.manere.dataapi.util.NodePath;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
 
+/**
+ * A self-contained DataAPI instance. Every instance owns its folder, cache, writer, executors and metrics,
+ * and the resources it creates are bound to it, so several instances can run side by side in one JVM.
+ */
 public class DataAPIImpl implements DataAPI {
-    private static JavaPlugin source;
-    private static String folderName;
-    private static String root;
+    private JavaPlugin source;
+    private String folderName;
+    private String root;
+    private StorageFormat format = StorageFormat.yaml();
+    private int cacheSize = 2048;
+    private Duration cacheIdleTime = Duration.ofMinutes(10);
+    private Duration flushInterval = Duration.ofSeconds(5);
+    private int flushThreshold = 64;
+    private boolean syncWrites = true;
+    private boolean groupCommit = true;
+    private int ioThreads = 4;
+    private int saveThreads = 8;
+    private ExecutorService ioExecutor;
+    private boolean virtualThreads;
+    private int maxConcurrentIo = 256;
+    private boolean mainThreadCallbacks;
+    private Duration metricsInterval;
+    private File metricsFile;
+    private Duration sessionGracePeriod;
+    private int scanParallelism = Runtime.getRuntime().availableProcessors();
+    private DataLayout layout = DataLayout.FLAT;
+    private Set<String> segmented = Set.of();
+    private long mapThreshold = 1024 * 1024;
+    private boolean deltaSaves;
+    private Duration logSyncInterval;
+    private File dataFolder;
+    private Directories directories;
+    private StorageEngine engine;
+    private DocumentCache cache;
+    private DocumentWriter writer;
+    private DataExecutors executors;
+    private DataMetricsImpl metrics;
+    private MetricsReporter reporter;
+    private PlayerSessions sessions;
+    private ForkJoinPool scanPool;
+    private DataIndexes indexes;
+    private WriteAheadLog log;
+    private final Map<File, Boolean> unmigrated = new ConcurrentHashMap<>();
 
     /**
      * {@inheritDoc}
      */
     @Override
     public void source(final @NotNull JavaPlugin source) {
-        DataAPIImpl.source = source;
+        this.source = source;
     }
 
     /**
@@ -32,7 +87,7 @@ public class DataAPIImpl implements DataAPI {
      */
     @Override
     public void folder(final @NotNull String folderName) {
-        DataAPIImpl.folderName = folderName;
+        this.folderName = folderName;
     }
 
     /**
@@ -40,14 +95,206 @@ public class DataAPIImpl implements DataAPI {
      */
     @Override
     public void rootChar(final @NotNull String root) {
-        DataAPIImpl.root = root;
+        this.root = root;
     }
 
     /**
      * {@inheritDoc}
      */
     public void rootChar(final char root) {
-        DataAPIImpl.root = String.valueOf(root);
+        this.root = String.valueOf(root);
+    }
+
+    /**
+     * Sets the format resources are stored in.
+     *
+     * @param format The storage format.
+     */
+    public void format(final @NotNull StorageFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets the maximum number of parsed documents kept in memory.
+     *
+     * @param size The maximum number of cached documents.
+     */
+    public void cacheSize(final int size) {
+        this.cacheSize = size;
+    }
+
+    /**
+     * Sets how long a parsed document may stay unused before it is evicted from memory.
+     *
+     * @param idleTime The idle time, zero to keep documents until the size limit is hit.
+     */
+    public void cacheIdleTime(final @NotNull Duration idleTime) {
+        this.cacheIdleTime = idleTime;
+    }
+
+    /**
+     * Sets how often dirty documents are written to disk in the background.
+     *
+     * @param interval The flush interval.
+     */
+    public void flushInterval(final @NotNull Duration interval) {
+        this.flushInterval = interval;
+    }
+
+    /**
+     * Sets the amount of changes after which a dirty document is flushed before the next interval.
+     *
+     * @param threshold The change threshold, zero to only flush on the interval.
+     */
+    public void flushThreshold(final int threshold) {
+        this.flushThreshold = threshold;
+    }
+
+    /**
+     * Sets whether saves are forced to the storage device before they are considered done.
+     *
+     * @param syncWrites True to fsync every save.
+     */
+    public void syncWrites(final boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+
+    /**
+     * Sets whether all resources flushed in the same cycle share one durability barrier.
+     *
+     * @param groupCommit True to group background flushes.
+     */
+    public void groupCommit(final boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    /**
+     * Sets the amount of threads performing the disk access of the async API.
+     *
+     * @param threads The amount of I/O threads.
+     */
+    public void ioThreads(final int threads) {
+        this.ioThreads = threads;
+    }
+
+    /**
+     * Sets the amount of workers writing resources in parallel during {@link #saveAll(Duration)}.
+     *
+     * @param threads The amount of save workers.
+     */
+    public void saveThreads(final int threads) {
+        this.saveThreads = threads;
+    }
+
+    /**
+     * Sets a custom executor performing the disk access of the async API, DataAPI never shuts it down.
+     *
+     * @param executor The I/O executor, or null to let DataAPI create one.
+     */
+    public void ioExecutor(final @Nullable ExecutorService executor) {
+        this.ioExecutor = executor;
+    }
+
+    /**
+     * Sets whether the disk access of the async API runs on a virtual thread per task.
+     * Falls back to the platform I/O threads on runtimes older than Java 21.
+     *
+     * @param virtualThreads True to use virtual threads.
+     */
+    public void virtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Sets the maximum amount of async tasks touching the disk at once.
+     *
+     * @param maxConcurrentIo The maximum amount of concurrent I/O tasks, zero for no limit.
+     */
+    public void maxConcurrentIo(final int maxConcurrentIo) {
+        this.maxConcurrentIo = maxConcurrentIo;
+    }
+
+    /**
+     * Sets whether futures of the async API complete on the server main thread.
+     *
+     * @param mainThreadCallbacks True to complete futures on the main thread.
+     */
+    public void mainThreadCallbacks(final boolean mainThreadCallbacks) {
+        this.mainThreadCallbacks = mainThreadCallbacks;
+    }
+
+    /**
+     * Sets how often metric snapshots are reported.
+     *
+     * @param interval The report interval, or null to disable the reporter.
+     * @param file     The CSV file rows are appended to, or null to report to the plugin logger.
+     */
+    public void metricsReporter(final @Nullable Duration interval, final @Nullable File file) {
+        this.metricsInterval = interval;
+        this.metricsFile = file;
+    }
+
+    /**
+     * Sets whether player resources are kept resident while their players are online.
+     *
+     * @param gracePeriod How long a resource stays resident after its player quits, or null to disable sessions.
+     */
+    public void playerSessions(final @Nullable Duration gracePeriod) {
+        this.sessionGracePeriod = gracePeriod;
+    }
+
+    /**
+     * Sets the amount of threads parsing files during scans.
+     *
+     * @param parallelism The scan parallelism.
+     */
+    public void scanParallelism(final int parallelism) {
+        this.scanParallelism = parallelism;
+    }
+
+    /**
+     * Sets how player resources are laid out in their folder.
+     *
+     * @param layout The layout.
+     */
+    public void layout(final @NotNull DataLayout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * Sets the parent folders whose resources are stored in segment files.
+     *
+     * @param parents The parent folders.
+     */
+    public void segmented(final @NotNull Set<String> parents) {
+        this.segmented = Set.copyOf(parents);
+    }
+
+    /**
+     * Sets the size from which resource files are memory-mapped when read, if the format decodes in place.
+     *
+     * @param bytes The threshold in bytes, 0 to never map files.
+     */
+    public void mapThreshold(final long bytes) {
+        this.mapThreshold = bytes;
+    }
+
+    /**
+     * Sets whether saves of large resources append the changed values to a journal instead of rewriting the file.
+     *
+     * @param deltaSaves True to enable delta saves.
+     */
+    public void deltaSaves(final boolean deltaSaves) {
+        this.deltaSaves = deltaSaves;
+    }
+
+    /**
+     * Sets whether stores are logged to a write-ahead log, durable long before their resources are saved.
+     *
+     * @param syncInterval How often the log is forced to the storage device, or null to disable the log.
+     */
+    public void writeAheadLog(final @Nullable Duration syncInterval) {
+        this.logSyncInterval = syncInterval;
     }
 
     /**
@@ -55,7 +302,7 @@ public class DataAPIImpl implements DataAPI {
      */
     @Override
     public @NotNull DataResource data(final @NotNull String parent, @NotNull String name) {
-        return new DataResourceImpl(parent, name);
+        return new DataResourceImpl(this, parent, name);
     }
 
     /**
@@ -63,7 +310,7 @@ public class DataAPIImpl implements DataAPI {
      */
     @Override
     public @NotNull DataResource data(final @NotNull String name) {
-        return new DataResourceImpl(name);
+        return new DataResourceImpl(this, name);
     }
 
     /**
@@ -71,7 +318,7 @@ public class DataAPIImpl implements DataAPI {
      */
     @Override
     public @NotNull PlayerDataResource player(final @NotNull String parent, @NotNull UUID uuid) {
-        return new PlayerDataResourceImpl(parent, uuid);
+        return new PlayerDataResourceImpl(this, parent, uuid);
     }
 
     /**
@@ -79,7 +326,85 @@ public class DataAPIImpl implements DataAPI {
      */
     @Override
     public @NotNull PlayerDataResource player(final @NotNull UUID uuid) {
-        return new PlayerDataResourceImpl(uuid);
+        final PlayerDataResource resident = sessions == null ? null : sessions.resource(uuid);
+        return resident == null ? new PlayerDataResourceImpl(this, uuid) : resident;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataScan scan(final @NotNull String parent) {
+        return scanner(parent);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataScan scan() {
+        return scanner(null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataIndex index(final @NotNull String parent, final @NotNull NodePath path) {
+        return indexes.index(FileResources.file(dataFolder, "/" + parent + "/"), parent, path, this::scanner);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataIndex index(final @NotNull NodePath path) {
+        return indexes.index(dataFolder, null, path, this::scanner);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<Integer> migrate(final @NotNull String parent) {
+        return migrate(FileResources.file(dataFolder, "/" + parent + "/"));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<Integer> migrate() {
+        return migrate(dataFolder);
+    }
+
+    private @NotNull CompletableFuture<Integer> migrate(final @NotNull File folder) {
+        final LayoutMigration migration = new LayoutMigration(folder, format.extension(), layout, cache, writer, directories, scanPool, source.getLogger());
+
+        // Checked again on the next resolution, files refused by the migration are still found in the flat layout.
+        return CompletableFuture.supplyAsync(migration::run, executors.io()).whenComplete((moved, e) -> unmigrated.remove(folder));
+    }
+
+    /**
+     * Resolves the file of a player resource in the configured layout.
+     * The flat location is only checked while the folder holds player files not migrated yet,
+     * which is looked up once per folder and again after each migration of it.
+     *
+     * @param folder The folder of the resource.
+     * @param name   The name of the resource, the UUID of the player.
+     * @return The file of the resource.
+     */
+    public @NotNull File playerFile(final @NotNull File folder, final @NotNull String name) {
+        if (layout == DataLayout.SHARDED && !unmigrated.computeIfAbsent(folder, key -> PlayerFiles.unmigrated(key, format.extension()))) {
+            return PlayerFiles.sharded(folder, name, format.extension());
+        }
+
+        return PlayerFiles.file(folder, name, format.extension(), layout);
+    }
+
+    private @NotNull DataScanImpl scanner(final @Nullable String parent) {
+        final File folder = parent == null ? dataFolder : FileResources.file(dataFolder, "/" + parent + "/");
+        return new DataScanImpl(this, parent, folder.toPath(), format.extension(), layout, cache, engine, scanPool);
     }
 
     /**
@@ -116,6 +441,15 @@ public class DataAPIImpl implements DataAPI {
         if (folderName == null) folder(source.getName());
         if (root == null) rootChar('~');
 
+        if (reporter != null) reporter.close();
+        if (sessions != null) sessions.close();
+        if (writer != null) writer.close();
+        if (indexes != null) indexes.close();
+        if (log != null) log.close();
+        if (engine != null) engine.close();
+        if (executors != null) executors.close();
+        if (scanPool != null) scanPool.shutdown();
+
         final File pluginsFolder = source.getServer().getPluginsFolder();
         final File dataFolder = FileResources.file(pluginsFolder, "/data/");
         final File registeredFolder = FileResources.file(dataFolder, "/" + folderName + "/");
@@ -123,6 +457,36 @@ public class DataAPIImpl implements DataAPI {
         if (!dataFolder.exists()) dataFolder.mkdirs();
         if (!registeredFolder.exists()) registeredFolder.mkdirs();
 
+        this.dataFolder = registeredFolder;
+        unmigrated.clear();
+
+        final Set<File> segmentedFolders = new HashSet<>();
+        for (final String parent : segmented) segmentedFolders.add(FileResources.file(registeredFolder, "/" + parent + "/"));
+
+        directories = new Directories();
+        // Mapping only saves a copy if the format decodes the mapping itself, YAML is decoded into text either way.
+        engine = new RoutingStorageEngine(directories, segmentedFolders, layout, format.decodesInPlace() ? mapThreshold : 0, deltaSaves, source.getLogger());
+        metrics = new DataMetricsImpl(() -> cache.documents(), source.getServer()::isPrimaryThread);
+        cache = new DocumentCache(format, engine, metrics, cacheSize, cacheIdleTime);
+        indexes = new DataIndexes(registeredFolder, directories, layout, syncWrites);
+
+        try {
+            log = logSyncInterval == null ? null : new WriteAheadLog(FileResources.file(registeredFolder, "/.wal/"), registeredFolder, logSyncInterval, source.getLogger());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        writer = new DocumentWriter(cache, engine, metrics, indexes, log, flushInterval, flushThreshold, syncWrites, groupCommit, source.getLogger());
+        executors = DataExecutors.create(source, ioThreads, ioExecutor, virtualThreads, maxConcurrentIo, mainThreadCallbacks);
+        reporter = metricsInterval == null ? null : new MetricsReporter(metrics, metricsInterval, metricsFile, source.getLogger());
+        scanPool = new ForkJoinPool(scanParallelism);
+        restoreIndexes();
+        if (log != null) recover();
+
+        sessions = sessionGracePeriod == null ? null : new PlayerSessions(this, cache, writer, sessionGracePeriod, source.getLogger());
+
+        if (sessions != null) source.getServer().getPluginManager().registerEvents(sessions, source);
+
         final File txtFile = FileResources.file(dataFolder, "/read_me_if_you_want_to.yml");
         if (txtFile.exists()) return;
         try {
@@ -163,24 +527,145 @@ public class DataAPIImpl implements DataAPI {
         }
     }
 
+    /**
+     * Registers the indexes created by earlier runs, so stores keep them up to date before they're used.
+     */
+    private void restoreIndexes() {
+        indexes.restore((parent, path) -> {
+            if (parent == null) index(path);
+            else index(parent, path);
+        });
+    }
+
+    /**
+     * Replays the stores logged before the previous run stopped, then saves them and checkpoints the log.
+     */
+    private void recover() {
+        final int replayed;
+
+        try {
+            replayed = log.replay((file, path, value) -> {
+                final DataDocument document = cache.acquire(file, DataMetrics.DATA);
+
+                try {
+                    final Lock lock = document.lock().writeLock();
+
+                    lock.lock();
+
+                    try {
+                        document.sync();
+                        value.into(document.configuration(), path);
+                        document.forget(path);
+                        document.touched(path);
+                        indexes.stored(document, path);
+                    } finally {
+                        lock.unlock();
+                    }
+
+                    writer.changed(document);
+                } finally {
+                    document.release();
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to replay the write-ahead log", e);
+        }
+
+        if (replayed == 0) return;
+
+        writer.flushAll();
+        source.getLogger().info("Recovered " + replayed + " stores from the write-ahead log");
+    }
+
     /**
      * {@inheritDoc}
      */
-    public static @NotNull String apiRoot() {
-        return root;
+    @Override
+    public int flushAll() {
+        return writer.flushAll();
     }
 
     /**
      * {@inheritDoc}
      */
-    public static @NotNull JavaPlugin apiSource() {
-        return source;
+    @Override
+    public @NotNull SaveReport saveAll(final @NotNull Duration timeout) {
+        return writer.saveAll(saveThreads, timeout);
     }
 
     /**
      * {@inheritDoc}
      */
-    public static @NotNull String apiFolder() {
-        return folderName;
+    @Override
+    public void unregister() {
+        if (writer == null) return;
+
+        if (reporter != null) reporter.close();
+        if (sessions != null) sessions.close();
+        executors.close();
+        scanPool.shutdown();
+        writer.close();
+        indexes.close();
+        if (log != null) log.close();
+        engine.close();
+        executors = null;
+        log = null;
+        writer = null;
+        engine = null;
+        cache = null;
+        reporter = null;
+        sessions = null;
+        scanPool = null;
+        indexes = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull DataMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieves the folder resources of this instance are stored in.
+     *
+     * @return The data folder.
+     */
+    public @NotNull File dataFolder() {
+        return dataFolder;
+    }
+
+    public @NotNull DataLayout layout() {
+        return layout;
+    }
+
+    public @NotNull StorageFormat format() {
+        return format;
+    }
+
+    public @NotNull DocumentCache cache() {
+        return cache;
+    }
+
+    public @NotNull DocumentWriter writer() {
+        return writer;
+    }
+
+    public @NotNull DataExecutors executors() {
+        return executors;
+    }
+
+    public @NotNull DataIndexes indexes() {
+        return indexes;
+    }
+
+    /**
+     * Retrieves the write-ahead log stores are logged to.
+     *
+     * @return The log, or null if it's disabled.
+     */
+    public @Nullable WriteAheadLog log() {
+        return log;
     }
 }
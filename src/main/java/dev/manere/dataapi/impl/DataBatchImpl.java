@@ -0,0 +1,30 @@
+package dev.manere.dataapi.impl;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import dev.manere.dataapi.api.DataBatch;
+import dev.manere.dataapi.util.NodePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DataBatchImpl implements DataBatch {
+    private final Map<NodePath, Object> values = new LinkedHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @CanIgnoreReturnValue
+    public @NotNull DataBatch store(final @NotNull NodePath path, final @Nullable Object value) {
+        // Re-inserted so the store keeps its place after stores of paths it overwrites.
+        values.remove(path);
+        values.put(path, value);
+        return this;
+    }
+
+    public @NotNull Map<NodePath, Object> values() {
+        return values;
+    }
+}
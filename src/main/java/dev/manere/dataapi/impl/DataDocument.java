@@ -0,0 +1,465 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.StorageFormat;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * A parsed data file held in the {@link DocumentCache}, shared by every editor of the same resource.
+ * <p>
+ * The configuration is guarded by a read-write lock: reads hold the read lock, mutations the write lock.
+ * Saves only hold the read lock while serializing and no lock while writing to storage,
+ * so readers never wait on a save and writers never wait on the disk.
+ * Primitive slots are updated atomically under the read lock, so transactions holding the write lock exclude them,
+ * and stored into the configuration under the write lock.
+ * <p>
+ * Editors {@link #acquire()} the document for the duration of a mutation, until the change is reported to the
+ * {@link DocumentWriter}. The cache only drops documents it can {@link #retire()}, so no mutation ever lands in a
+ * document which is no longer cached and would never be saved, and no save is still in progress when it's dropped.
+ * <p>
+ * The paths changed since the last save are tracked, so saves of large documents can append them to a
+ * {@link DeltaJournal} instead of rewriting the whole content.
+ */
+public class DataDocument {
+    private final File file;
+    private final FileConfiguration configuration;
+    private final StorageFormat format;
+    private final String type;
+    private final long size;
+    private final AtomicInteger changes = new AtomicInteger();
+    private final AtomicInteger users = new AtomicInteger();
+    private final Map<String, PrimitiveSlot> slots = new ConcurrentHashMap<>();
+    private volatile boolean slotsChanged;
+    private final Set<String> touched = ConcurrentHashMap.newKeySet();
+    private volatile boolean untracked;
+    private volatile int base;
+    private volatile long baseSize = -1;
+    private volatile long journaled;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean flushing;
+    private volatile long version;
+    private volatile long accessed;
+
+    public DataDocument(final @NotNull File file, final @NotNull FileConfiguration configuration, final @NotNull StorageFormat format, final @NotNull String type, final long size, final long version) {
+        this.file = file;
+        this.configuration = configuration;
+        this.format = format;
+        this.type = type;
+        this.size = size;
+        this.version = version;
+        this.accessed = System.currentTimeMillis();
+    }
+
+    /**
+     * Parses the given resource into a new document.
+     * Unlike {@link org.bukkit.configuration.file.YamlConfiguration#loadConfiguration(File)}, malformed files fail
+     * instead of loading as empty documents, which would overwrite them on the next save.
+     *
+     * @param engine The engine storing the resource.
+     * @param file   The resolved file of the resource.
+     * @param format The format of the file.
+     * @param type   The metrics type of the resource, see {@link dev.manere.dataapi.api.DataMetrics}.
+     * @return The parsed document.
+     */
+    public static @NotNull DataDocument load(final @NotNull StorageEngine engine, final @NotNull File file, final @NotNull StorageFormat format, final @NotNull String type) {
+        // Read the version first, a write racing the parse then shows up as a stale document.
+        final long version = engine.version(file);
+
+        try {
+            final ByteBuffer content = engine.read(file);
+            final ByteBuffer journal = engine.journal(file);
+            final int size = content.remaining();
+            final boolean deltas = size >= DeltaJournal.MIN_SIZE && engine.journaled(file);
+            final int base = journal == null && !deltas ? 0 : DeltaJournal.checksum(content);
+            final List<ByteBuffer> records = journal == null ? List.of() : DeltaJournal.records(journal, base);
+
+            // Deltas apply to the loaded content right away, unless the journal ends in a torn or foreign tail
+            // appends would land behind. The first save then rewrites the content, which drops the journal.
+            final boolean intact = journal == null || DeltaJournal.length(records) == journal.remaining();
+
+            final FileConfiguration configuration = format.read(content);
+            for (final ByteBuffer record : records) DeltaJournal.apply(format.read(record), configuration);
+
+            final DataDocument document = new DataDocument(file, configuration, format, type, size, version);
+            if (deltas && intact) {
+                document.base = base;
+                document.baseSize = size;
+                document.journaled = journal == null ? 0 : journal.remaining();
+            }
+
+            return document;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse " + file, e);
+        }
+    }
+
+    public @NotNull File file() {
+        return file;
+    }
+
+    /**
+     * Keeps the document from being dropped by the cache until {@link #release()}.
+     *
+     * @return True if acquired, false if the document was already dropped and must be looked up again.
+     */
+    public boolean acquire() {
+        while (true) {
+            final int current = users.get();
+            if (current < 0) return false;
+            if (users.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Releases an acquisition, once the change made under it was reported to the {@link DocumentWriter}.
+     */
+    public void release() {
+        users.decrementAndGet();
+    }
+
+    public boolean retired() {
+        return users.get() < 0;
+    }
+
+    /**
+     * Marks the document as dropped from the cache, so it can't be acquired anymore.
+     *
+     * @return True if retired, false if the document is acquired, being saved or holds unwritten changes and must stay cached.
+     */
+    public boolean retire() {
+        if (!users.compareAndSet(0, -1)) return false;
+
+        // A save holds the flush lock until it's written or failed, and a failed save reports its changes again.
+        // Checked once nobody can acquire it, a change reported just before is never dropped.
+        if (flushLock.isHeldByCurrentThread() || !flushLock.tryLock()) {
+            users.set(0);
+            return false;
+        }
+
+        try {
+            if (dirty()) {
+                users.set(0);
+                return false;
+            }
+
+            return true;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the configuration. Callers must hold the {@link #lock()}, and call {@link #sync()} before reading.
+     *
+     * @return The configuration.
+     */
+    public @NotNull FileConfiguration configuration() {
+        return configuration;
+    }
+
+    /**
+     * Retrieves the lock guarding the configuration.
+     *
+     * @return The read-write lock.
+     */
+    public @NotNull ReentrantReadWriteLock lock() {
+        return lock;
+    }
+
+    /**
+     * Reads the configuration under the read lock, after storing changed primitive slots into it.
+     *
+     * @param reader The read.
+     * @param <V>    The type of the result.
+     * @return The result of the read.
+     */
+    public <V> V read(final @NotNull Function<? super FileConfiguration, ? extends V> reader) {
+        sync();
+        lock.readLock().lock();
+
+        try {
+            return reader.apply(configuration);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the primitive slot of a path, reading it from the configuration on first use.
+     *
+     * @param path The path.
+     * @return The slot.
+     */
+    public @NotNull PrimitiveSlot slot(final @NotNull String path) {
+        final PrimitiveSlot slot = slots.get(path);
+        if (slot != null) return slot;
+
+        // Created under the read lock, so a concurrent write of the path can't slip in before the slot is visible.
+        lock.readLock().lock();
+
+        try {
+            final PrimitiveSlot created = PrimitiveSlot.of(configuration.get(path));
+            final PrimitiveSlot existing = slots.putIfAbsent(path, created);
+            return existing == null ? created : existing;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records that a primitive slot changed, it's stored into the configuration on the next read or save of it.
+     * Changes must still be reported to the {@link DocumentWriter}.
+     */
+    public void slotChanged() {
+        slotsChanged = true;
+    }
+
+    /**
+     * Drops the primitive slots a configuration write to the given path may overwrite.
+     * Must be called while holding the write lock.
+     *
+     * @param path The written path.
+     */
+    public void forget(final @NotNull String path) {
+        if (slots.isEmpty()) return;
+        slots.keySet().removeIf(key -> DataIndexes.related(key, path));
+    }
+
+    /**
+     * Records a change of the value at a path, for the next delta save.
+     * Must be called once the configuration or primitive slot holds the new value.
+     *
+     * @param path The changed path.
+     */
+    public void touched(final @NotNull String path) {
+        touched.add(path);
+    }
+
+    /**
+     * Records a change which can't be expressed as changed paths, such as of comments or through a live section.
+     * The next save rewrites the whole content.
+     */
+    public void untracked() {
+        untracked = true;
+    }
+
+    /**
+     * Stores changed primitive slots into the configuration, taking the write lock if any changed.
+     * Must not be called while holding only the read lock.
+     */
+    public void sync() {
+        if (!slotsChanged) return;
+
+        lock.writeLock().lock();
+
+        try {
+            slotsChanged = false;
+
+            for (final Map.Entry<String, PrimitiveSlot> entry : slots.entrySet()) {
+                if (entry.getValue().clean()) configuration.set(entry.getKey(), entry.getValue().boxed());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public @NotNull String type() {
+        return type;
+    }
+
+    /**
+     * Retrieves the amount of bytes parsed when the document was loaded.
+     *
+     * @return The size of the file at load time.
+     */
+    public long size() {
+        return size;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long accessed() {
+        return accessed;
+    }
+
+    public void touch() {
+        accessed = System.currentTimeMillis();
+    }
+
+    /**
+     * Checks whether the stored resource changed since this document was parsed or last saved.
+     *
+     * @param version The current version of the stored resource, see {@link StorageEngine#version(File)}.
+     * @return True if the document no longer reflects the stored resource.
+     */
+    public boolean stale(final long version) {
+        return !flushing && version != this.version;
+    }
+
+    /**
+     * Records a mutation of the configuration.
+     * Mutations must happen while holding the write lock, so flushes never serialize a half-applied change.
+     *
+     * @return The number of changes not yet written to disk.
+     */
+    public int changed() {
+        return changes.incrementAndGet();
+    }
+
+    /**
+     * Checks whether the document holds changes not yet written to disk.
+     *
+     * @return True if the document is dirty.
+     */
+    public boolean dirty() {
+        return changes.get() > 0;
+    }
+
+    /**
+     * Serializes the unwritten changes of the document.
+     * The returned snapshot holds the flush lock of this document until it is marked written or failed,
+     * so writes of the same document never overtake each other.
+     *
+     * @param deltas Whether the changes may be serialized as a delta, see {@link StorageEngine#journaled(File)}.
+     * @return The snapshot, or null if the document is clean.
+     */
+    public @Nullable Snapshot snapshot(final boolean deltas) {
+        flushLock.lock();
+
+        int pending = 0;
+        byte[] content = null;
+        boolean delta = false;
+
+        try {
+            // Serialized under the read lock only, readers go on while the snapshot is taken and written.
+            pending = changes.getAndSet(0);
+
+            if (pending != 0) {
+                // Drained before the configuration is read, a path changed meanwhile is just written again next time.
+                final boolean tracked = deltas && baseSize >= DeltaJournal.MIN_SIZE && !untracked;
+                untracked = false;
+                final List<String> paths = new ArrayList<>(touched);
+                touched.removeAll(paths);
+
+                sync();
+                lock.readLock().lock();
+
+                try {
+                    if (tracked && !paths.isEmpty()) {
+                        content = format.write(DeltaJournal.delta(configuration, paths));
+
+                        // Compacted into a rewrite once the journal grows to half the content.
+                        delta = journaled + content.length <= baseSize / 2;
+                    }
+
+                    if (!delta && !(tracked && paths.isEmpty())) content = format.write(configuration);
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            changes.addAndGet(pending);
+            untracked = true;
+            flushLock.unlock();
+            throw e instanceof RuntimeException runtime ? runtime : new RuntimeException(e);
+        }
+
+        // Changes already serialized by the previous snapshot leave nothing to write.
+        if (content == null) {
+            flushLock.unlock();
+            return null;
+        }
+
+        flushing = true;
+        return new Snapshot(pending, content, deltas, delta);
+    }
+
+    /**
+     * The serialized content of a document about to be written.
+     */
+    public class Snapshot {
+        private final int changes;
+        private final byte[] content;
+        private final boolean deltas;
+        private final boolean delta;
+
+        private Snapshot(final int changes, final byte @NotNull [] content, final boolean deltas, final boolean delta) {
+            this.changes = changes;
+            this.content = content;
+            this.deltas = deltas;
+            this.delta = delta;
+        }
+
+        public @NotNull DataDocument document() {
+            return DataDocument.this;
+        }
+
+        public byte @NotNull [] content() {
+            return content;
+        }
+
+        /**
+         * Checks whether the content is a delta record, to be appended to the journal of the resource.
+         *
+         * @return True if the content is a delta.
+         */
+        public boolean delta() {
+            return delta;
+        }
+
+        /**
+         * Retrieves the checksum of the stored content the delta applies to.
+         *
+         * @return The checksum.
+         */
+        public int base() {
+            return base;
+        }
+
+        /**
+         * Marks the snapshot as written, releasing the flush lock.
+         *
+         * @param version The version of the stored resource after the write.
+         */
+        public void written(final long version) {
+            if (delta) {
+                journaled += content.length;
+            } else if (deltas) {
+                base = DeltaJournal.checksum(ByteBuffer.wrap(content));
+                baseSize = content.length;
+                journaled = 0;
+            }
+
+            DataDocument.this.version = version;
+            flushing = false;
+            flushLock.unlock();
+        }
+
+        /**
+         * Marks the snapshot as failed, its changes are retried on the next flush. Releases the flush lock.
+         */
+        public void failed() {
+            DataDocument.this.changes.addAndGet(changes);
+            untracked = true;
+            flushing = false;
+            flushLock.unlock();
+        }
+    }
+}
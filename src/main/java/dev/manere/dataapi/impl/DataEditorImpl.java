@@ -1,44 +1,99 @@
 package dev.manere.dataapi.impl;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import dev.manere.dataapi.api.DataBatch;
 import dev.manere.dataapi.api.DataEditor;
 import dev.manere.dataapi.api.DataResourceBase;
 import dev.manere.dataapi.util.NodePath;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
-public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implements DataEditor<T> {
-    public DataEditorImpl(final @NotNull T resource) {
-        this.resource = resource;
+public record DataEditorImpl<T extends DataResourceBase<T>>(DataAPIImpl api, T resource) implements DataEditor<T> {
+    private <V> V read(final @NotNull Function<FileConfiguration, V> reader) {
+        return document().read(reader);
+    }
+
+    private @NotNull DataDocument document() {
+        return api.cache().document(resource);
+    }
 
-        resource().reload();
+    private <V> V modify(final @NotNull Function<FileConfiguration, V> mutation) {
+        return modify(List.of(), List.of(), mutation);
+    }
+
+    private <V> V modify(final @NotNull String path, final byte @Nullable [] encoded, final @NotNull Function<FileConfiguration, V> mutation) {
+        return modify(List.of(path), Collections.singletonList(encoded), mutation);
     }
 
     /**
-     * {@inheritDoc}
+     * Applies a mutation of the configuration under the write lock, then records the stores to the given paths:
+     * their slots are dropped, they're marked for the next delta and indexed, the change is reported once,
+     * and their encoded values are logged after it, so a checkpoint dropping a record always saves the document.
+     * Without paths the change isn't tracked and the next save rewrites the whole content.
+     *
+     * @param paths    The stored paths.
+     * @param encoded  The encoded values of the paths, read once the mutation returns.
+     * @param mutation The mutation.
      */
-    @CanIgnoreReturnValue
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private @NotNull FileConfiguration config() {
-        final File file = resource.file();
+    private <V> V modify(final @NotNull List<String> paths, final @NotNull List<byte[]> encoded, final @NotNull Function<FileConfiguration, V> mutation) {
+        // Acquired until the change is reported, so the document can't be dropped from the cache with it.
+        final DataDocument document = api.cache().acquire(resource);
+
+        try {
+            final Lock lock = document.lock().writeLock();
+
+            lock.lock();
 
-        if (!file.exists()) {
             try {
-                file.createNewFile();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                document.sync();
+                final V result = mutation.apply(document.configuration());
+
+                for (final String path : paths) {
+                    document.forget(path);
+                    document.touched(path);
+                    api.indexes().stored(document, path);
+                }
+
+                if (paths.isEmpty()) document.untracked();
+                api.writer().changed(document);
+
+                for (int i = 0; i < paths.size(); i++) log(paths.get(i), encoded.get(i));
+                return result;
+            } finally {
+                lock.unlock();
             }
+        } finally {
+            document.release();
         }
+    }
+
+    /**
+     * Encodes a value for the write-ahead log, before it is stored.
+     *
+     * @return The encoded value, or null if the log is disabled.
+     * @throws IllegalArgumentException If the log can't hold the value, nothing is stored then.
+     */
+    private byte @Nullable [] encode(final @Nullable Object value) {
+        return api.log() == null ? null : WriteAheadLog.encode(value);
+    }
 
-        return YamlConfiguration.loadConfiguration(file);
+    /**
+     * Logs a stored value to the write-ahead log, if enabled. Must be called holding the write lock,
+     * after the change is reported to the writer: a checkpoint dropping the record then always saves the document.
+     */
+    private void log(final @NotNull String path, final byte @Nullable [] encoded) {
+        final WriteAheadLog log = api.log();
+        if (log != null && encoded != null) log.append(resource.file(), path, encoded);
     }
 
     /**
@@ -47,7 +102,10 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
     @Override
     public void comment(final @NotNull NodePath parent, final @NotNull String name, final @NotNull Collection<String> comments) {
         final String path = parent.convert() + name;
-        config().setComments(path, new ArrayList<>(comments));
+        modify(config -> {
+            config.setComments(path, new ArrayList<>(comments));
+            return null;
+        });
     }
 
     /**
@@ -55,7 +113,7 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
      */
     @Override
     public void header(final @NotNull Collection<String> header) {
-        config().options().setHeader(new ArrayList<>(header));
+        modify(config -> config.options().setHeader(new ArrayList<>(header)));
     }
 
     /**
@@ -63,7 +121,7 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
      */
     @Override
     public void footer(final @NotNull Collection<String> footer) {
-        config().options().setFooter(new ArrayList<>(footer));
+        modify(config -> config.options().setFooter(new ArrayList<>(footer)));
     }
 
     /**
@@ -80,7 +138,117 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
     @Override
     public void store(final @NotNull NodePath parent, final @NotNull String name, final @Nullable Object value) {
         final String path = parent.convert() + name;
-        config().set(path, value);
+        final byte[] encoded = encode(value);
+
+        modify(path, encoded, config -> {
+            config.set(path, value);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void store(final @NotNull NodePath path, final @Nullable Object value) {
+        // The one inlined copy of modify(), the hot path shouldn't allocate a capturing lambda and singleton lists.
+        final byte[] encoded = encode(value);
+        final DataDocument document = api.cache().acquire(resource);
+
+        try {
+            final Lock lock = document.lock().writeLock();
+
+            lock.lock();
+
+            try {
+                document.sync();
+                document.configuration().set(path.key(), value);
+                document.forget(path.key());
+                document.touched(path.key());
+                api.indexes().stored(document, path.key());
+                api.writer().changed(document);
+                log(path.key(), encoded);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            document.release();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable Object compute(final @NotNull NodePath path, final @NotNull UnaryOperator<Object> function) {
+        final String key = path.key();
+        final List<byte[]> encoded = new ArrayList<>(1);
+
+        return modify(List.of(key), encoded, config -> {
+            final Object value = function.apply(config.get(key));
+
+            // Encoded before it's stored, a value the write-ahead log can't hold fails the call with nothing stored.
+            encoded.add(encode(value));
+            config.set(key, value);
+            return value;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(final @NotNull Consumer<? super DataEditor<T>> transaction) {
+        // Acquired for the whole transaction, so the document can be neither evicted nor replaced by a reload
+        // and every call of the transaction resolves the document whose lock it holds.
+        final DataDocument document = api.cache().acquire(resource);
+
+        try {
+            final Lock lock = document.lock().writeLock();
+
+            lock.lock();
+
+            try {
+                transaction.accept(this);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            document.release();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeAll(final @NotNull Map<NodePath, ?> values) {
+        if (values.isEmpty()) return;
+
+        final List<String> paths = new ArrayList<>(values.size());
+        final List<byte[]> encoded = new ArrayList<>(values.size());
+
+        // Encoded up front, a value the write-ahead log can't hold fails the call before anything is stored.
+        for (final Map.Entry<NodePath, ?> entry : values.entrySet()) {
+            paths.add(entry.getKey().key());
+            encoded.add(encode(entry.getValue()));
+        }
+
+        // Reported once, the values are saved together like a single store.
+        modify(paths, encoded, config -> {
+            for (final Map.Entry<NodePath, ?> entry : values.entrySet()) config.set(entry.getKey().key(), entry.getValue());
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void batch(final @NotNull Consumer<? super DataBatch> batch) {
+        final DataBatchImpl collected = new DataBatchImpl();
+        batch.accept(collected);
+        storeAll(collected.values());
     }
 
     /**
@@ -89,7 +257,26 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
     @Override
     public @Nullable Object retrieve(final @NotNull NodePath parent, final @NotNull String name) {
         final String path = parent.convert() + name;
-        return config().get(path);
+        return read(config -> config.get(path));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable Object retrieve(final @NotNull NodePath path) {
+        // Inlined like store(NodePath, Object), the hot path shouldn't allocate a capturing lambda.
+        final DataDocument document = document();
+        document.sync();
+
+        final Lock lock = document.lock().readLock();
+        lock.lock();
+
+        try {
+            return document.configuration().get(path.key());
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -100,6 +287,209 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
         return type.cast(retrieve(parent, name));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Map<NodePath, Object> retrieveProjected(final @NotNull Set<NodePath> paths) {
+        return api.cache().project(resource.file(), DataMetricsImpl.type(resource), paths);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Map<NodePath, Object> retrieveAll(final @NotNull Collection<NodePath> paths) {
+        return read(config -> {
+            final Map<NodePath, Object> values = new LinkedHashMap<>();
+
+            for (final NodePath path : paths) {
+                final Object value = config.get(path.key());
+                if (value != null) values.put(path, value);
+            }
+
+            return values;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int retrieveInt(final @NotNull NodePath path, final int def) {
+        final DataDocument document = document();
+        final Lock lock = document.lock().readLock();
+
+        // Held so a transaction on the resource excludes primitive reads like any other read.
+        lock.lock();
+
+        try {
+            final PrimitiveSlot slot = document.slot(path.key());
+            return slot.present() ? (int) slot.longValue() : def;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long retrieveLong(final @NotNull NodePath path, final long def) {
+        final DataDocument document = document();
+        final Lock lock = document.lock().readLock();
+
+        lock.lock();
+
+        try {
+            final PrimitiveSlot slot = document.slot(path.key());
+            return slot.present() ? slot.longValue() : def;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double retrieveDouble(final @NotNull NodePath path, final double def) {
+        final DataDocument document = document();
+        final Lock lock = document.lock().readLock();
+
+        lock.lock();
+
+        try {
+            final PrimitiveSlot slot = document.slot(path.key());
+            return slot.present() ? slot.doubleValue() : def;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean retrieveBoolean(final @NotNull NodePath path, final boolean def) {
+        final DataDocument document = document();
+        final Lock lock = document.lock().readLock();
+
+        lock.lock();
+
+        try {
+            return document.slot(path.key()).booleanValue(def);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeInt(final @NotNull NodePath path, final int value) {
+        slot(path, value, (slot, bits) -> {
+            slot.set(bits, PrimitiveSlot.Kind.INT);
+            return bits;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeLong(final @NotNull NodePath path, final long value) {
+        slot(path, value, (slot, bits) -> {
+            slot.set(bits, PrimitiveSlot.Kind.LONG);
+            return bits;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeDouble(final @NotNull NodePath path, final double value) {
+        slot(path, Double.doubleToRawLongBits(value), (slot, bits) -> {
+            slot.set(Double.longBitsToDouble(bits));
+            return bits;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void storeBoolean(final @NotNull NodePath path, final boolean value) {
+        slot(path, value ? 1 : 0, (slot, bits) -> {
+            slot.set(bits, PrimitiveSlot.Kind.BOOLEAN);
+            return bits;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long increment(final @NotNull NodePath path, final long delta) {
+        return slot(path, delta, (slot, bits) -> slot.add(bits));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double increment(final @NotNull NodePath path, final double delta) {
+        return Double.longBitsToDouble(slot(path, Double.doubleToRawLongBits(delta), (slot, bits) -> Double.doubleToRawLongBits(slot.add(Double.longBitsToDouble(bits)))));
+    }
+
+    /**
+     * A change of a primitive slot, taking and returning doubles by their raw bits so it never boxes.
+     * Implementations capture nothing, so passing them doesn't allocate either.
+     */
+    @FunctionalInterface
+    private interface SlotChange {
+        long apply(final @NotNull PrimitiveSlot slot, final long bits);
+    }
+
+    /**
+     * Applies a change to the slot of a path under the read lock of the acquired document, then reports and logs it.
+     * Slots update atomically on their own, the read lock only keeps them out of transactions and syncs.
+     * Logged under the lock, so a transaction can't store the path in between and be overwritten on replay.
+     * Indexes are updated once the lock is released, they read the document.
+     */
+    private long slot(final @NotNull NodePath path, final long bits, final @NotNull SlotChange change) {
+        final String key = path.key();
+        final DataDocument document = api.cache().acquire(resource);
+
+        try {
+            final Lock lock = document.lock().readLock();
+            final long result;
+
+            lock.lock();
+
+            try {
+                final PrimitiveSlot slot = document.slot(key);
+                result = change.apply(slot, bits);
+
+                document.slotChanged();
+                document.touched(key);
+                api.writer().changed(document);
+
+                final WriteAheadLog log = api.log();
+                if (log != null) log.append(document.file(), key, slot::boxed);
+            } finally {
+                lock.unlock();
+            }
+
+            api.indexes().stored(document, key);
+            return result;
+        } finally {
+            document.release();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -113,23 +503,16 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
 
     @Override
     public @NotNull Map<String, Object> pairs() {
-        final Map<String, Object> pairs = new HashMap<>();
-
-        for (final String key : keys()) {
-            final Object value = retrieve(key);
-            pairs.put(key, value);
-        }
-
-        return pairs;
+        return read(config -> new HashMap<>(config.getValues(true)));
     }
 
     @Override
     public @NotNull <V> Map<String, V> pairs(@NotNull Class<V> requiredType) {
         final Map<String, V> pairs = new HashMap<>();
 
-        for (final String key : keys()) {
-            final V value = retrieve(key, requiredType);
-            if (value != null && requiredType.isInstance(retrieve(key))) pairs.put(key, value);
+        for (final Map.Entry<String, Object> entry : nodes().entrySet()) {
+            final Object value = entry.getValue();
+            if (requiredType.isInstance(value)) pairs.put(entry.getKey(), requiredType.cast(value));
         }
 
         return pairs;
@@ -140,8 +523,7 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
      */
     @Override
     public @NotNull List<Object> values() {
-        final Collection<Object> collection = config().getValues(true).values();
-        return new ArrayList<>(collection);
+        return read(config -> new ArrayList<>(config.getValues(true).values()));
     }
 
     /**
@@ -149,8 +531,7 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
      */
     @Override
     public @NotNull List<String> keys() {
-        final Set<String> set = config().getValues(true).keySet();
-        return new ArrayList<>(set);
+        return read(config -> new ArrayList<>(config.getValues(true).keySet()));
     }
 
     /**
@@ -158,7 +539,7 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
      */
     @Override
     public @NotNull Map<String, Object> nodes() {
-        return config().getValues(true);
+        return read(config -> config.getValues(true));
     }
 
     /**
@@ -200,7 +581,7 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
     @Override
     public @Nullable ConfigurationSection retrieveSection(final @NotNull NodePath parent, final @NotNull String name) {
         final String path = parent.convert() + name;
-        return config().getConfigurationSection(path);
+        return document().read(config -> detached(config.getConfigurationSection(path)));
     }
 
     /**
@@ -209,7 +590,7 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
     @Override
     public @NotNull ConfigurationSection storeSection(final @NotNull NodePath parent, final @NotNull String name) {
         final String path = parent.convert() + name;
-        return config().createSection(path);
+        return modify(path, encode(Map.of()), config -> detached(config.createSection(path)));
     }
 
     /**
@@ -218,6 +599,45 @@ public record DataEditorImpl<T extends DataResourceBase<T>>(T resource) implemen
     @Override
     public @NotNull ConfigurationSection storeSection(final @NotNull NodePath parent, final @NotNull String name, final @NotNull Map<?, ?> children) {
         final String path = parent.convert() + name;
-        return config().createSection(path, children);
+        final byte[] encoded = encode(children);
+
+        return modify(path, encoded, config -> detached(config.createSection(path, children)));
+    }
+
+    /**
+     * Copies a section of the document at the same path of a new configuration, so changes to it can't reach the
+     * shared document past its lock. Must be called while holding the document's lock.
+     */
+    private static @Nullable ConfigurationSection detached(final @Nullable ConfigurationSection section) {
+        if (section == null) return null;
+
+        final ConfigurationSection copy = new MemoryConfiguration().createSection(section.getCurrentPath());
+        copy(section, copy);
+        return copy;
+    }
+
+    private static void copy(final @NotNull ConfigurationSection from, final @NotNull ConfigurationSection to) {
+        for (final String key : from.getKeys(false)) {
+            final Object value = from.get(key);
+
+            if (value instanceof ConfigurationSection section) copy(section, to.createSection(key));
+            else to.set(key, detached(value));
+        }
+    }
+
+    private static @Nullable Object detached(final @Nullable Object value) {
+        if (value instanceof List<?> list) {
+            final List<Object> copy = new ArrayList<>(list.size());
+            for (final Object element : list) copy.add(detached(element));
+            return copy;
+        }
+
+        if (value instanceof Map<?, ?> map) {
+            final Map<Object, Object> copy = new LinkedHashMap<>(map.size() * 2);
+            for (final Map.Entry<?, ?> entry : map.entrySet()) copy.put(entry.getKey(), detached(entry.getValue()));
+            return copy;
+        }
+
+        return value;
     }
 }
@@ -0,0 +1,157 @@
+package dev.manere.dataapi.impl;
+
+import org.bukkit.Server;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the disk access of the async API on a dedicated, bounded I/O executor,
+ * optionally completing the returned futures on the server main thread, or on the completing thread once the plugin is disabled.
+ * The amount of tasks touching the disk at once is capped, so mass loads can't exhaust file descriptors.
+ */
+public class DataExecutors {
+    private final ExecutorService io;
+    private final boolean ownsIo;
+    private final Semaphore permits;
+    private final Executor callbacks;
+
+    public DataExecutors(final @NotNull ExecutorService io, final boolean ownsIo, final int maxConcurrentIo, final @Nullable Executor callbacks) {
+        this.io = io;
+        this.ownsIo = ownsIo;
+        this.permits = maxConcurrentIo > 0 ? new Semaphore(maxConcurrentIo) : null;
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Creates the executors of a DataAPI instance.
+     *
+     * @param source              The plugin owning the DataAPI instance.
+     * @param ioThreads           The amount of platform I/O threads, ignored when a custom executor is given.
+     * @param custom              A custom I/O executor, or null to create one.
+     * @param virtualThreads      Whether to run each task on its own virtual thread, if the runtime supports them.
+     * @param maxConcurrentIo     The maximum amount of tasks touching the disk at once, zero for no limit.
+     * @param mainThreadCallbacks Whether futures complete on the server main thread.
+     * @return The created executors.
+     */
+    public static @NotNull DataExecutors create(final @NotNull JavaPlugin source, final int ioThreads, final @Nullable ExecutorService custom, final boolean virtualThreads, final int maxConcurrentIo, final boolean mainThreadCallbacks) {
+        final Executor callbacks = mainThreadCallbacks ? mainThread(source) : null;
+        if (custom != null) return new DataExecutors(custom, false, maxConcurrentIo, callbacks);
+
+        if (virtualThreads) {
+            final ExecutorService virtual = virtualThreadPerTask();
+            if (virtual != null) return new DataExecutors(virtual, true, maxConcurrentIo, callbacks);
+
+            source.getLogger().warning("Virtual threads require Java 21 or newer, falling back to " + ioThreads + " platform I/O threads");
+        }
+
+        final AtomicInteger counter = new AtomicInteger();
+        final ThreadPoolExecutor io = new ThreadPoolExecutor(
+                ioThreads, ioThreads,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "DataAPI I/O #" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+
+        io.allowCoreThreadTimeOut(true);
+        return new DataExecutors(io, true, maxConcurrentIo, callbacks);
+    }
+
+    private static @Nullable ExecutorService virtualThreadPerTask() {
+        // Looked up reflectively, DataAPI is compiled for Java 17.
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static @NotNull Executor mainThread(final @NotNull JavaPlugin source) {
+        final Server server = source.getServer();
+
+        return command -> {
+            // Once the plugin is disabled the scheduler refuses its tasks, late callbacks run where they complete instead.
+            if (server.isPrimaryThread() || !source.isEnabled()) {
+                command.run();
+                return;
+            }
+
+            try {
+                server.getScheduler().runTask(source, command);
+            } catch (IllegalPluginAccessException e) {
+                // Disabled between the check and the hop.
+                command.run();
+            }
+        };
+    }
+
+    public @NotNull ExecutorService io() {
+        return io;
+    }
+
+    /**
+     * Runs the task on the I/O executor.
+     *
+     * @param task The task to run.
+     * @param <V>  The result type.
+     * @return A future completed with the result, on the main thread if main thread callbacks are enabled.
+     */
+    public <V> @NotNull CompletableFuture<V> supply(final @NotNull Supplier<V> task) {
+        final CompletableFuture<V> future = CompletableFuture.supplyAsync(limited(task), io);
+        if (callbacks == null) return future;
+
+        // Hop failures too, thenApplyAsync would complete exceptional futures on the I/O thread.
+        final CompletableFuture<V> hopped = new CompletableFuture<>();
+        future.whenComplete((value, error) -> callbacks.execute(() -> {
+            if (error != null) hopped.completeExceptionally(error);
+            else hopped.complete(value);
+        }));
+
+        return hopped;
+    }
+
+    private <V> @NotNull Supplier<V> limited(final @NotNull Supplier<V> task) {
+        if (permits == null) return task;
+
+        // Blocking is cheap on virtual threads, the permit only caps how many tasks hold files open.
+        return () -> {
+            permits.acquireUninterruptibly();
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * Stops the I/O executor if it was created by DataAPI, waiting for queued tasks to finish.
+     */
+    public void close() {
+        if (!ownsIo) return;
+
+        io.shutdown();
+
+        try {
+            io.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataIndex;
+import dev.manere.dataapi.api.DataResourceBase;
+import dev.manere.dataapi.api.DataScan;
+import dev.manere.dataapi.util.AtomicFiles;
+import dev.manere.dataapi.util.NodePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * An index held in memory as a value to names map and its reverse, persisted as a list of name and value pairs.
+ * <p>
+ * The persisted index records whether it was closed cleanly. Loading it marks it open on disk before any resource
+ * is saved, and only {@link #close(Directories, boolean)} marks it closed again, so an index the instance stopped
+ * without closing, such as on a crash between saving resources and the index, is rebuilt instead of trusted.
+ * <p>
+ * Loading and rebuilding read the entries without holding the index, updates made meanwhile are recorded
+ * and applied over the read entries, since they are newer than anything the read may have seen.
+ */
+public class DataIndexImpl implements DataIndex {
+    private static final int MAGIC = 0x44414958;
+    private static final byte VERSION = 2;
+    private static final int STATE_OFFSET = 5;
+    private static final byte OPEN = 0;
+    private static final byte CLOSED = 1;
+
+    private final String parent;
+    private final NodePath path;
+    private final Path file;
+    private final DataScanImpl scan;
+    private final Map<String, Set<String>> names = new HashMap<>();
+    private final Map<String, String> values = new HashMap<>();
+    private final Object loading = new Object();
+    private volatile boolean loaded;
+    private Map<String, String> pending;
+    private int builds;
+    private boolean dirty;
+    private byte state = -1;
+
+    public DataIndexImpl(final @Nullable String parent, final @NotNull NodePath path, final @NotNull Path file, final @NotNull DataScanImpl scan) {
+        this.parent = parent;
+        this.path = path;
+        this.file = file;
+        this.scan = scan;
+    }
+
+    /**
+     * Loads the persisted index, building it if it was never persisted or wasn't closed cleanly.
+     * Does nothing if the index was already loaded, callers loading it concurrently wait for the first.
+     *
+     * @param force Whether to force marking the index open to the storage device.
+     */
+    public void load(final boolean force) {
+        synchronized (loading) {
+            if (loaded) return;
+
+            begin();
+
+            try {
+                open(force);
+            } finally {
+                end();
+            }
+
+            loaded = true;
+        }
+    }
+
+    private void open(final boolean force) {
+        final byte[] content;
+
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            rebuild();
+            return;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        try {
+            read(ByteBuffer.wrap(content));
+        } catch (IOException | BufferUnderflowException e) {
+            // The index only mirrors the resources, a damaged or possibly outdated one is rebuilt instead of failing.
+            rebuild();
+            return;
+        }
+
+        // Marked before any resource is saved, the stored index no longer covers every save once one happens.
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{OPEN}), STATE_OFFSET);
+            if (force) channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        synchronized (this) {
+            state = OPEN;
+        }
+    }
+
+    private void read(final @NotNull ByteBuffer content) throws IOException {
+        if (content.getInt() != MAGIC) throw new IOException("Not a DataAPI index");
+        if (content.get() != VERSION) throw new IOException("Unsupported index version");
+        if (content.get() != CLOSED) throw new IOException("Index wasn't closed, resources may have been saved after it");
+
+        final BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(content, null);
+        final int count = decoder.count();
+        final Map<String, String> read = new HashMap<>();
+
+        for (int i = 0; i < count; i++) read.put(decoder.string(), decoder.string());
+
+        synchronized (this) {
+            replace(read);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rebuild() {
+        final Map<String, String> built = new HashMap<>();
+        begin();
+
+        try {
+            // Parsed in parallel by the scan, only the indexed value of each resource is decoded.
+            try (final Stream<DataScan.Result<Object>> results = scan.project(path, Object.class)) {
+                results.forEach(result -> built.put(result.name(), key(result.value())));
+            }
+
+            synchronized (this) {
+                replace(built);
+                dirty = true;
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Starts recording updates, so the entries of a load or rebuild running meanwhile don't overwrite them.
+     */
+    private synchronized void begin() {
+        if (builds++ == 0) pending = new HashMap<>();
+    }
+
+    private synchronized void end() {
+        if (--builds == 0) pending = null;
+    }
+
+    /**
+     * Replaces the entries by the given ones, then applies the updates recorded since, must be called while holding this.
+     */
+    private void replace(final @NotNull Map<String, String> entries) {
+        names.clear();
+        values.clear();
+        entries.forEach(this::put);
+
+        pending.forEach((name, key) -> {
+            remove(name);
+            if (key != null) put(name, key);
+        });
+    }
+
+    /**
+     * Updates the indexed value of a resource.
+     *
+     * @param name  The name of the resource.
+     * @param value The new value, or null if the resource no longer holds one.
+     */
+    public synchronized void update(final @NotNull String name, final @Nullable Object value) {
+        final String key = key(value);
+        if (pending != null) pending.put(name, key);
+
+        final String previous = values.get(name);
+        if (key == null ? previous == null : key.equals(previous)) return;
+
+        remove(name);
+        if (key != null) put(name, key);
+        dirty = true;
+    }
+
+    private void put(final @NotNull String name, final @NotNull String value) {
+        values.put(name, value);
+        names.computeIfAbsent(value, key -> new HashSet<>(2)).add(name);
+    }
+
+    private void remove(final @NotNull String name) {
+        final String previous = values.remove(name);
+        if (previous == null) return;
+
+        final Set<String> holders = names.get(previous);
+        holders.remove(name);
+        if (holders.isEmpty()) names.remove(previous);
+    }
+
+    private static @Nullable String key(final @Nullable Object value) {
+        return value == null ? null : String.valueOf(value);
+    }
+
+    /**
+     * Writes the index to disk if it changed since it was last written, still marked open.
+     *
+     * @param directories The directories known to exist.
+     * @param force       Whether to force the write to the storage device.
+     */
+    public void flush(final @NotNull Directories directories, final boolean force) {
+        write(directories, force, OPEN);
+    }
+
+    /**
+     * Writes the index to disk marked closed, so the next load trusts it.
+     * Must only be called once every resource is saved and no more stores happen.
+     *
+     * @param directories The directories known to exist.
+     * @param force       Whether to force the write to the storage device.
+     */
+    public void close(final @NotNull Directories directories, final boolean force) {
+        write(directories, force, CLOSED);
+    }
+
+    private void write(final @NotNull Directories directories, final boolean force, final byte state) {
+        // Only partially filled until loaded, it's written once the load completes.
+        if (!loaded) return;
+
+        final byte[] content;
+
+        synchronized (this) {
+            if (!dirty && this.state == state) return;
+
+            final BinaryCodec.Encoder out = new BinaryCodec.Encoder(false);
+            out.writeInt(MAGIC);
+            out.write(VERSION);
+            out.write(state);
+            out.varint(values.size());
+
+            for (final Map.Entry<String, String> entry : values.entrySet()) {
+                out.string(entry.getKey());
+                out.string(entry.getValue());
+            }
+
+            content = out.toByteArray();
+            dirty = false;
+        }
+
+        try {
+            directories.create(file.getParent());
+            AtomicFiles.write(file, content, force);
+        } catch (IOException e) {
+            directories.forget(file.getParent());
+            synchronized (this) {
+                dirty = true;
+            }
+
+            throw new RuntimeException(e);
+        }
+
+        synchronized (this) {
+            this.state = state;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable String parent() {
+        return parent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull NodePath path() {
+        return path;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized @NotNull Set<String> lookup(final @NotNull Object value) {
+        final Set<String> holders = names.get(key(value));
+        return holders == null ? Collections.emptySet() : Set.copyOf(holders);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull List<DataResourceBase<?>> resources(final @NotNull Object value) {
+        final List<DataResourceBase<?>> resources = new ArrayList<>();
+
+        for (final String name : lookup(value)) resources.add(scan.resource(name));
+
+        return resources;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,230 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataLayout;
+import dev.manere.dataapi.util.NodePath;
+import dev.manere.dataapi.util.AtomicFiles;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Holds the secondary indexes of a DataAPI instance by the folder of the resources they cover.
+ * Index files live in a hidden {@code .index} directory of that folder, next to the resources.
+ * <p>
+ * Every index ever created is listed in a manifest in the {@code .index} directory of the data folder,
+ * and registered again when the instance registers, so every store keeps it up to date even in runs that never use it.
+ */
+public class DataIndexes {
+    private static final int MAGIC = 0x4441494C;
+    private static final byte VERSION = 1;
+
+    private final Map<File, List<DataIndexImpl>> indexes = new ConcurrentHashMap<>();
+    private final Set<Registered> registered = new LinkedHashSet<>();
+    private final Path manifest;
+    private final Directories directories;
+    private final DataLayout layout;
+    private final boolean syncWrites;
+
+    /**
+     * An index listed in the manifest, by its parent folder name, empty for the data folder, and its indexed path.
+     */
+    private record Registered(@NotNull String parent, @NotNull String path) {}
+
+    public DataIndexes(final @NotNull File dataFolder, final @NotNull Directories directories, final @NotNull DataLayout layout, final boolean syncWrites) {
+        this.manifest = dataFolder.toPath().resolve(".index").resolve("indexes.list");
+        this.directories = directories;
+        this.layout = layout;
+        this.syncWrites = syncWrites;
+    }
+
+    /**
+     * Registers every index listed in the manifest again.
+     *
+     * @param register Registers an index by its parent folder name, null for the data folder, and its indexed path.
+     */
+    public void restore(final @NotNull BiConsumer<@Nullable String, @NotNull NodePath> register) {
+        final byte[] content;
+
+        try {
+            content = Files.readAllBytes(manifest);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        final List<Registered> listed = new ArrayList<>();
+
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(content);
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) throw new IOException("Not a DataAPI index manifest");
+
+            final BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(buffer, null);
+            final int count = decoder.count();
+            for (int i = 0; i < count; i++) listed.add(new Registered(decoder.string(), decoder.string()));
+        } catch (IOException | BufferUnderflowException e) {
+            throw new RuntimeException("Failed to read " + manifest, e);
+        }
+
+        synchronized (this) {
+            registered.addAll(listed);
+        }
+
+        for (final Registered index : listed) register.accept(index.parent().isEmpty() ? null : index.parent(), NodePath.compile(index.path()));
+    }
+
+    /**
+     * Retrieves the index of a path in a folder, loading or building it on first use.
+     * The index is registered before it's built, so stores made during the build update it,
+     * and the build itself runs without holding this.
+     *
+     * @param folder The folder of the indexed resources.
+     * @param parent The parent folder name, or null for the data folder.
+     * @param path   The indexed path.
+     * @param scan   Creates the scan used to build the index.
+     * @return The index.
+     */
+    public @NotNull DataIndexImpl index(final @NotNull File folder, final @Nullable String parent, final @NotNull NodePath path, final @NotNull Function<String, DataScanImpl> scan) {
+        final DataIndexImpl index;
+
+        synchronized (this) {
+            index = registered(folder, parent, path, scan);
+        }
+
+        index.load(syncWrites);
+
+        synchronized (this) {
+            if (registered.add(new Registered(parent == null ? "" : parent, path.key()))) list();
+        }
+
+        return index;
+    }
+
+    /**
+     * Finds or adds the index of a path in a folder, must be called while holding this.
+     */
+    private @NotNull DataIndexImpl registered(final @NotNull File folder, final @Nullable String parent, final @NotNull NodePath path, final @NotNull Function<String, DataScanImpl> scan) {
+        final List<DataIndexImpl> existing = indexes.computeIfAbsent(folder, key -> new CopyOnWriteArrayList<>());
+
+        for (final DataIndexImpl index : existing) {
+            if (index.path().equals(path)) return index;
+        }
+
+        final Path file = folder.toPath().resolve(".index").resolve(path.key() + ".idx");
+        final DataIndexImpl index = new DataIndexImpl(parent, path, file, scan.apply(parent));
+        existing.add(index);
+        return index;
+    }
+
+    /**
+     * Writes the manifest, must be called while holding this.
+     */
+    private void list() {
+        final BinaryCodec.Encoder out = new BinaryCodec.Encoder(false);
+        out.writeInt(MAGIC);
+        out.write(VERSION);
+        out.varint(registered.size());
+
+        for (final Registered index : registered) {
+            out.string(index.parent());
+            out.string(index.path());
+        }
+
+        try {
+            directories.create(manifest.getParent());
+            AtomicFiles.write(manifest, out.toByteArray(), syncWrites);
+        } catch (IOException e) {
+            directories.forget(manifest.getParent());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Updates the indexes affected by a store to the given path of a document.
+     * Must be called after the configuration was changed, either holding the document's write lock or no lock of it.
+     *
+     * @param document The modified document.
+     * @param key      The stored path.
+     */
+    public void stored(final @NotNull DataDocument document, final @NotNull String key) {
+        if (indexes.isEmpty()) return;
+
+        final List<DataIndexImpl> candidates = indexes.get(PlayerFiles.folder(document.file(), layout));
+        if (candidates == null) return;
+
+        String name = null;
+
+        for (final DataIndexImpl index : candidates) {
+            final String indexed = index.path().key();
+            if (!related(indexed, key)) continue;
+
+            if (name == null) {
+                final String file = document.file().getName();
+                final int extension = file.lastIndexOf('.');
+                name = extension < 0 ? file : file.substring(0, extension);
+            }
+
+            index.update(name, document.read(configuration -> configuration.get(indexed)));
+        }
+    }
+
+    /**
+     * Checks whether storing one path may change the value at the other, because they are equal or nested.
+     */
+    static boolean related(final @NotNull String indexed, final @NotNull String key) {
+        if (indexed.length() == key.length()) return indexed.equals(key);
+
+        final String shorter = indexed.length() < key.length() ? indexed : key;
+        final String longer = shorter == indexed ? key : indexed;
+        return longer.startsWith(shorter) && longer.charAt(shorter.length()) == '.';
+    }
+
+    /**
+     * Writes every changed index to disk.
+     */
+    public void flush() {
+        write(false);
+    }
+
+    /**
+     * Writes every index to disk marked closed, once every resource is saved.
+     */
+    public void close() {
+        write(true);
+    }
+
+    private void write(final boolean close) {
+        RuntimeException failure = null;
+
+        for (final Collection<DataIndexImpl> folder : indexes.values()) {
+            for (final DataIndexImpl index : folder) {
+                try {
+                    if (close) index.close(directories, syncWrites);
+                    else index.flush(directories, syncWrites);
+                } catch (RuntimeException e) {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) throw failure;
+    }
+}
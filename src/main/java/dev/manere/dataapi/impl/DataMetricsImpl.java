@@ -0,0 +1,145 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataMetrics;
+import dev.manere.dataapi.api.PlayerDataResource;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+public class DataMetricsImpl implements DataMetrics {
+    private final Map<String, TypeMetrics> types = new ConcurrentHashMap<>();
+    private final Supplier<Collection<DataDocument>> documents;
+    private final BooleanSupplier mainThread;
+
+    public DataMetricsImpl(final @NotNull Supplier<Collection<DataDocument>> documents, final @NotNull BooleanSupplier mainThread) {
+        this.documents = documents;
+        this.mainThread = mainThread;
+
+        types.put(DATA, new TypeMetrics());
+        types.put(PLAYER, new TypeMetrics());
+    }
+
+    /**
+     * Retrieves the metrics type of a resource.
+     *
+     * @param resource The resource.
+     * @return {@link #PLAYER} for player resources, {@link #DATA} otherwise.
+     */
+    public static @NotNull String type(final @NotNull Object resource) {
+        return resource instanceof PlayerDataResource ? PLAYER : DATA;
+    }
+
+    private @NotNull TypeMetrics metrics(final @NotNull String type) {
+        return types.computeIfAbsent(type, key -> new TypeMetrics());
+    }
+
+    public void hit(final @NotNull String type) {
+        metrics(type).hits.increment();
+    }
+
+    public void miss(final @NotNull String type) {
+        metrics(type).misses.increment();
+    }
+
+    public void loaded(final @NotNull String type, final long nanos, final long bytes) {
+        final TypeMetrics metrics = metrics(type);
+
+        metrics.load.record(nanos);
+        metrics.bytesRead.add(bytes);
+    }
+
+    public void saved(final @NotNull String type, final long nanos, final long bytes) {
+        final TypeMetrics metrics = metrics(type);
+
+        metrics.save.record(nanos);
+        metrics.bytesWritten.add(bytes);
+    }
+
+    /**
+     * Records time spent waiting on the disk, counted only when the calling thread is the server main thread.
+     *
+     * @param type  The resource type.
+     * @param nanos The time spent waiting.
+     */
+    public void blocked(final @NotNull String type, final long nanos) {
+        if (mainThread.getAsBoolean()) metrics(type).blocked.add(nanos);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Map<String, Snapshot> snapshot() {
+        final Map<String, Integer> dirty = dirty();
+        final Map<String, Snapshot> snapshots = new LinkedHashMap<>();
+
+        for (final Map.Entry<String, TypeMetrics> entry : types.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot(entry.getKey(), dirty.getOrDefault(entry.getKey(), 0)));
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Snapshot snapshot(final @NotNull String type) {
+        return metrics(type).snapshot(type, dirty().getOrDefault(type, 0));
+    }
+
+    private @NotNull Map<String, Integer> dirty() {
+        final Map<String, Integer> dirty = new LinkedHashMap<>();
+
+        for (final DataDocument document : documents.get()) {
+            if (document.dirty()) dirty.merge(document.type(), 1, Integer::sum);
+        }
+
+        return dirty;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        for (final TypeMetrics metrics : types.values()) metrics.reset();
+    }
+
+    private static class TypeMetrics {
+        private final LatencyHistogram load = new LatencyHistogram();
+        private final LatencyHistogram save = new LatencyHistogram();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder blocked = new LongAdder();
+
+        private @NotNull Snapshot snapshot(final @NotNull String type, final int dirty) {
+            return new Snapshot(
+                    type,
+                    load.snapshot(), save.snapshot(),
+                    bytesRead.sum(), bytesWritten.sum(),
+                    hits.sum(), misses.sum(),
+                    dirty,
+                    blocked.sum()
+            );
+        }
+
+        private void reset() {
+            load.reset();
+            save.reset();
+            bytesRead.reset();
+            bytesWritten.reset();
+            hits.reset();
+            misses.reset();
+            blocked.reset();
+        }
+    }
+}
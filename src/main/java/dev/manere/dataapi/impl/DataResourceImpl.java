@@ -1,43 +1,55 @@
 package dev.manere.dataapi.impl;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import dev.manere.dataapi.api.AsyncDataResource;
 import dev.manere.dataapi.api.DataEditor;
 import dev.manere.dataapi.api.DataResource;
 import dev.manere.dataapi.util.FileResources;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.IOException;
 
 public class DataResourceImpl implements DataResource {
+    private final DataAPIImpl api;
     private final String parent;
     private final String name;
+    private volatile File file;
 
-    public DataResourceImpl(final @NotNull String parent, final @NotNull String name) {
+    public DataResourceImpl(final @NotNull DataAPIImpl api, final @NotNull String parent, final @NotNull String name) {
+        this.api = api;
         this.parent = parent;
         this.name = name;
     }
 
-    public DataResourceImpl(final @NotNull String name) {
+    public DataResourceImpl(final @NotNull DataAPIImpl api, final @NotNull String name) {
+        this.api = api;
         this.parent = null;
         this.name = name;
     }
 
+    /**
+     * Creates a resource whose file was already resolved, such as a player file found by a scan.
+     *
+     * @param api    The instance owning the resource.
+     * @param parent The parent folder, or null for the data folder.
+     * @param name   The name of the resource.
+     * @param file   The file of the resource.
+     */
+    public DataResourceImpl(final @NotNull DataAPIImpl api, final @Nullable String parent, final @NotNull String name, final @NotNull File file) {
+        this.api = api;
+        this.parent = parent;
+        this.name = name;
+        this.file = file;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public @NotNull DataResource save() {
-        final File file = file();
-
-        final YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-
-        try {
-            config.save(file);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        final DataDocument document = api.cache().cached(file());
+        if (document != null) api.writer().flush(document);
 
         return this;
     }
@@ -47,7 +59,15 @@ public class DataResourceImpl implements DataResource {
      */
     @Override
     public @NotNull DataEditor<DataResource> editor() {
-        return new DataEditorImpl<>(this);
+        return new DataEditorImpl<>(api, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull AsyncDataResource<DataResource> async() {
+        return new AsyncDataResourceImpl<>(api, this);
     }
 
     /**
@@ -57,33 +77,21 @@ public class DataResourceImpl implements DataResource {
     @NotNull
     @Override
     public DataResource reload() {
-        YamlConfiguration.loadConfiguration(file());
+        api.cache().invalidate(file());
         return this;
     }
 
     /**
      * {@inheritDoc}
      */
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     @Override
     public @NotNull File file() {
-        final File root = DataAPIImpl.apiSource().getServer().getPluginsFolder();
-        final File dataFolder = FileResources.file(root, "/data/");
-        final File pluginFolder = FileResources.file(dataFolder, "/" + DataAPIImpl.apiFolder() + "/");
-
-        if (!pluginFolder.exists()) pluginFolder.mkdirs();
-
-        File file;
-
-        if (parent == null) file = FileResources.file(pluginFolder, "/" + name + ".yml");
-        else file = FileResources.file(FileResources.file(pluginFolder, "/" + parent + "/"), "/" + name + ".yml");
+        File file = this.file;
 
-        if (!file.exists()) {
-            try {
-                file.createNewFile();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+        // Resolved once, the file and its directories are only created when the resource is first written.
+        if (file == null) {
+            final File folder = parent == null ? api.dataFolder() : FileResources.file(api.dataFolder(), "/" + parent + "/");
+            this.file = file = FileResources.file(folder, "/" + name + "." + api.format().extension());
         }
 
         return file;
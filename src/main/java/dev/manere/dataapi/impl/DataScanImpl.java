@@ -0,0 +1,240 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataLayout;
+import dev.manere.dataapi.api.DataMetrics;
+import dev.manere.dataapi.api.DataResourceBase;
+import dev.manere.dataapi.api.DataScan;
+import dev.manere.dataapi.util.NodePath;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class DataScanImpl implements DataScan {
+    private final DataAPIImpl api;
+    private final String parent;
+    private final Path folder;
+    private final String extension;
+    private final DataLayout layout;
+    private final DocumentCache cache;
+    private final StorageEngine engine;
+    private final ForkJoinPool pool;
+
+    public DataScanImpl(final @NotNull DataAPIImpl api, final @Nullable String parent, final @NotNull Path folder, final @NotNull String extension, final @NotNull DataLayout layout, final @NotNull DocumentCache cache, final @NotNull StorageEngine engine, final @NotNull ForkJoinPool pool) {
+        this.api = api;
+        this.parent = parent;
+        this.folder = folder;
+        this.extension = "." + extension;
+        this.layout = layout;
+        this.cache = cache;
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Stream<DataResourceBase<?>> resources() {
+        return paths().map(this::resource);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <V> @NotNull Stream<Result<V>> project(final @NotNull Function<? super ConfigurationSection, ? extends V> projection) {
+        return parse(path -> {
+            final DataDocument document = cache.peek(path.toFile(), type(path));
+
+            final V value = document.read(projection);
+            return value == null ? null : new Result<>(name(path), resource(path), value);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <V> @NotNull Stream<Result<V>> project(final @NotNull NodePath path, final @NotNull Class<V> type) {
+        // Decodes only the requested value of each file instead of the whole document.
+        final Set<NodePath> paths = Set.of(path);
+
+        return parse(file -> {
+            final Object value = cache.project(file.toFile(), type(file), paths).get(path);
+            return type.isInstance(value) ? new Result<>(name(file), resource(file), type.cast(value)) : null;
+        });
+    }
+
+    private <V> @NotNull Stream<Result<V>> parse(final @NotNull Function<Path, Result<V>> parser) {
+        final Stream<Path> paths = paths();
+        final Spliterator<Result<V>> spliterator = new ParsingSpliterator<>(paths.iterator(), parser);
+
+        return StreamSupport.stream(spliterator, false).onClose(paths::close);
+    }
+
+    private @NotNull Stream<Path> paths() {
+        final Collection<String> names = engine.names(folder.toFile());
+        if (names != null) {
+            // Segmented folders keep no file per resource, their names are resolved in the folder's layout.
+            return names.stream()
+                    .filter(name -> name.endsWith(extension))
+                    .map(name -> resource(name.substring(0, name.length() - extension.length())).file().toPath());
+        }
+
+        final Stream<Path> flat = directory(folder, path -> path.getFileName().toString().endsWith(extension) && Files.isRegularFile(path));
+        if (layout == DataLayout.FLAT) return flat;
+
+        final DirectoryStream.Filter<Path> shards = path -> PlayerFiles.shard(path.getFileName().toString()) && Files.isDirectory(path);
+        return Stream.concat(flat, directory(folder, shards)
+                .flatMap(shard -> directory(shard, shards))
+                .flatMap(shard -> directory(shard, path -> path.getFileName().toString().endsWith(extension))));
+    }
+
+    private static @NotNull Stream<Path> directory(final @NotNull Path directory, final @NotNull DirectoryStream.Filter<Path> filter) {
+        final DirectoryStream<Path> entries;
+
+        try {
+            entries = Files.newDirectoryStream(directory, filter);
+        } catch (NoSuchFileException e) {
+            return Stream.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return StreamSupport.stream(entries.spliterator(), false).onClose(() -> {
+            try {
+                entries.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private @NotNull String name(final @NotNull Path path) {
+        final String file = path.getFileName().toString();
+        return file.substring(0, file.length() - extension.length());
+    }
+
+    /**
+     * Retrieves the metrics type of a scanned file, so scans are recorded like lookups of the same resources.
+     */
+    private @NotNull String type(final @NotNull Path path) {
+        return PlayerFiles.player(name(path)) ? DataMetrics.PLAYER : DataMetrics.DATA;
+    }
+
+    private @NotNull DataResourceBase<?> resource(final @NotNull Path path) {
+        final String name = name(path);
+        if (!PlayerFiles.player(name) && !path.getParent().equals(folder)) return new DataResourceImpl(api, parent, name, path.toFile());
+
+        return resource(name);
+    }
+
+    /**
+     * Resolves a resource of the scanned folder by its name, in the folder's layout.
+     * Names that are UUIDs resolve to player resources, through {@link DataAPIImpl#player(UUID)}.
+     *
+     * @param name The name of the resource.
+     * @return The resource.
+     */
+    public @NotNull DataResourceBase<?> resource(final @NotNull String name) {
+        if (PlayerFiles.player(name)) {
+            final UUID uuid = UUID.fromString(name);
+            return parent == null ? api.player(uuid) : api.player(parent, uuid);
+        }
+
+        return parent == null ? new DataResourceImpl(api, name) : new DataResourceImpl(api, parent, name);
+    }
+
+    /**
+     * Pulls batches of files from the directory and parses each batch in parallel on the scan pool.
+     * Nothing past the current batch is read, so short-circuiting streams stop the scan early.
+     */
+    private class ParsingSpliterator<V> extends Spliterators.AbstractSpliterator<Result<V>> {
+        private final Iterator<Path> paths;
+        private final Function<Path, Result<V>> parser;
+        private final Deque<Result<V>> buffer = new ArrayDeque<>();
+        private final int batchSize = Math.max(pool.getParallelism() * 4, 16);
+
+        private ParsingSpliterator(final @NotNull Iterator<Path> paths, final @NotNull Function<Path, Result<V>> parser) {
+            super(Long.MAX_VALUE, Spliterator.NONNULL);
+            this.paths = paths;
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean tryAdvance(final @NotNull Consumer<? super Result<V>> action) {
+            while (buffer.isEmpty()) {
+                if (!paths.hasNext()) return false;
+
+                final List<Path> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && paths.hasNext()) batch.add(paths.next());
+
+                // A parallel stream submitted from within the pool runs on the pool, not the common pool.
+                final List<Result<V>> results = pool.submit(() -> batch.parallelStream()
+                        .map(parser)
+                        .filter(Objects::nonNull)
+                        .toList()
+                ).join();
+
+                buffer.addAll(results);
+            }
+
+            action.accept(buffer.poll());
+            return true;
+        }
+    }
+
+    public static <T> @NotNull Collector<T, ?, List<T>> top(final int limit, final @NotNull Comparator<? super T> order) {
+        if (limit < 0) throw new IllegalArgumentException("limit cannot be negative");
+
+        // A min-heap of the greatest elements so far, its head is the first to be replaced.
+        return Collector.<T, PriorityQueue<T>, List<T>>of(
+                () -> new PriorityQueue<>(Math.min(limit, 1024) + 1, order),
+                (heap, element) -> offer(heap, element, limit, order),
+                (left, right) -> {
+                    for (final T element : right) offer(left, element, limit, order);
+                    return left;
+                },
+                heap -> {
+                    final List<T> elements = new ArrayList<>(heap);
+                    elements.sort(order.reversed());
+                    return elements;
+                }
+        );
+    }
+
+    private static <T> void offer(final @NotNull PriorityQueue<T> heap, final T element, final int limit, final @NotNull Comparator<? super T> order) {
+        if (heap.size() < limit) {
+            heap.add(element);
+        } else if (limit > 0 && order.compare(element, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+}
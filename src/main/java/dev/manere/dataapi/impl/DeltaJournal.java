@@ -0,0 +1,191 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.util.AtomicFiles;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of delta records kept next to a resource file, so a save only writes the changed values.
+ * The journal starts with the checksum of the content it applies to. A record holds the values of the paths changed
+ * since the previous save, encoded in the format of the resource, and is replayed over the content on load.
+ * <p>
+ * Replacing the content deletes the journal. If that's interrupted, the checksum no longer matches the new content
+ * and the leftover journal is ignored, as is a torn record at its end.
+ */
+public class DeltaJournal {
+    /**
+     * The content size from which documents are saved as deltas, rewriting smaller documents is just as cheap.
+     */
+    public static final int MIN_SIZE = 16 * 1024;
+
+    private static final int MAGIC = 0x44414A4C;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+
+    /**
+     * Retrieves the journal file of a resource file.
+     *
+     * @param file The resource file.
+     * @return The journal file.
+     */
+    public static @NotNull File file(final @NotNull File file) {
+        return new File(file.getPath() + ".delta");
+    }
+
+    /**
+     * Computes the checksum journals of the given content are bound to.
+     *
+     * @param content The content, read without moving its position.
+     * @return The checksum.
+     */
+    public static int checksum(final @NotNull ByteBuffer content) {
+        final CRC32 crc = new CRC32();
+        crc.update(content.duplicate());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Retrieves the records of a journal which apply to the given content.
+     *
+     * @param journal The journal.
+     * @param base    The checksum of the content.
+     * @return The intact records in append order, empty if the journal belongs to other content.
+     */
+    public static @NotNull List<ByteBuffer> records(final @NotNull ByteBuffer journal, final int base) {
+        final List<ByteBuffer> records = new ArrayList<>();
+        if (journal.remaining() < HEADER || journal.getInt(journal.position()) != MAGIC || journal.getInt(journal.position() + 4) != base) return records;
+
+        int position = journal.position() + HEADER;
+        while (journal.limit() - position >= RECORD_HEADER) {
+            final int length = journal.getInt(position);
+            final int crc = journal.getInt(position + 4);
+            if (length < 0 || length > journal.limit() - position - RECORD_HEADER) break;
+
+            final ByteBuffer record = journal.slice(position + RECORD_HEADER, length);
+            if (checksum(record) != crc) break;
+
+            records.add(record);
+            position += RECORD_HEADER + length;
+        }
+
+        return records;
+    }
+
+    /**
+     * Computes the length of a journal holding exactly the given records, a longer journal has a tail
+     * {@link #records(ByteBuffer, int)} skipped, such as a torn record.
+     *
+     * @param records The records of the journal.
+     * @return The length in bytes.
+     */
+    public static long length(final @NotNull List<ByteBuffer> records) {
+        long length = HEADER;
+        for (final ByteBuffer record : records) length += RECORD_HEADER + record.remaining();
+        return length;
+    }
+
+    /**
+     * Appends a record to the journal of a resource file, starting a new journal if the current one belongs to other content.
+     *
+     * @param file   The resource file.
+     * @param base   The checksum of the stored content.
+     * @param record The encoded record.
+     * @param force  Whether to force the record to the storage device.
+     * @throws IOException If appending fails.
+     */
+    public static void append(final @NotNull File file, final int base, final byte @NotNull [] record, final boolean force) throws IOException {
+        final Path path = file(file).toPath();
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = channel.size();
+            boolean fresh = position < HEADER;
+
+            if (!fresh) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER);
+                while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+                fresh = header.getInt(0) != MAGIC || header.getInt(4) != base;
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate((fresh ? HEADER : 0) + RECORD_HEADER + record.length);
+            if (fresh) {
+                channel.truncate(0);
+                position = 0;
+                buffer.putInt(MAGIC).putInt(base);
+            }
+
+            buffer.putInt(record.length).putInt(checksum(ByteBuffer.wrap(record))).put(record).flip();
+            while (buffer.hasRemaining()) position += channel.write(buffer, position);
+
+            if (force) channel.force(false);
+            if (force && fresh) AtomicFiles.syncDirectory(path.getParent());
+        }
+    }
+
+    /**
+     * Deletes the journal of a resource file, once its content was replaced.
+     *
+     * @param file The resource file.
+     * @throws IOException If deleting fails.
+     */
+    public static void delete(final @NotNull File file) throws IOException {
+        Files.deleteIfExists(file(file).toPath());
+    }
+
+    /**
+     * Builds a delta record holding the current values of the given paths, absent values remove their path on replay.
+     *
+     * @param configuration The configuration to read the values from.
+     * @param paths         The changed paths.
+     * @return The record, to be encoded by the format of the resource.
+     */
+    public static @NotNull FileConfiguration delta(final @NotNull ConfigurationSection configuration, final @NotNull Collection<String> paths) {
+        final FileConfiguration delta = new YamlConfiguration();
+
+        int index = 0;
+        for (final String path : paths) {
+            final ConfigurationSection change = delta.createSection("changes." + index++);
+            final Object value = configuration.get(path);
+
+            change.set("path", path);
+            if (value instanceof ConfigurationSection section) YamlSubtrees.copy(section, change.createSection("value"));
+            else change.set("value", value);
+        }
+
+        return delta;
+    }
+
+    /**
+     * Replays a decoded delta record over a configuration.
+     *
+     * @param delta         The record.
+     * @param configuration The configuration to apply the record to.
+     */
+    public static void apply(final @NotNull ConfigurationSection delta, final @NotNull ConfigurationSection configuration) {
+        final ConfigurationSection changes = delta.getConfigurationSection("changes");
+        if (changes == null) return;
+
+        for (final String index : changes.getKeys(false)) {
+            final ConfigurationSection change = changes.getConfigurationSection(index);
+            final String path = change == null ? null : change.getString("path");
+            if (path == null) continue;
+
+            final Object value = change.get("value");
+            if (value instanceof ConfigurationSection section) YamlSubtrees.copy(section, configuration.createSection(path));
+            else configuration.set(path, value);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package dev.manere.dataapi.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates directories once, remembering which already exist so writes don't stat them again.
+ */
+public class Directories {
+    private final Set<Path> created = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the directory and its parents unless it was already created.
+     *
+     * @param directory The directory.
+     * @throws IOException If the directory can't be created.
+     */
+    public void create(final @NotNull Path directory) throws IOException {
+        if (created.contains(directory)) return;
+
+        Files.createDirectories(directory);
+        created.add(directory);
+    }
+
+    /**
+     * Forgets the directory, for when a write into it failed and it may have been removed.
+     *
+     * @param directory The directory.
+     */
+    public void forget(final @NotNull Path directory) {
+        created.remove(directory);
+    }
+}
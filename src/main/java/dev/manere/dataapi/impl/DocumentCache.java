@@ -0,0 +1,324 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataResourceBase;
+import dev.manere.dataapi.api.StorageFormat;
+import dev.manere.dataapi.util.NodePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Caches parsed documents by their resolved file, so editors don't re-read and re-parse the file on every call.
+ * Documents are evicted once the cache grows past its maximum size or when left idle for too long,
+ * and re-parsed when the version of the stored resource changes. Dirty documents are never evicted before they are flushed.
+ * Pinned documents are never evicted and never checked for external modifications, serving every lookup from memory.
+ * Documents acquired by an editor are neither evicted nor replaced, see {@link DataDocument#retire()}.
+ */
+public class DocumentCache {
+    private final Map<File, DataDocument> documents = new ConcurrentHashMap<>();
+    private final Set<File> pinned = ConcurrentHashMap.newKeySet();
+    private final StorageFormat format;
+    private final StorageEngine engine;
+    private final DataMetricsImpl metrics;
+    private final int maximumSize;
+    private final long idleMillis;
+    private volatile long lastSweep;
+
+    public DocumentCache(final @NotNull StorageFormat format, final @NotNull StorageEngine engine, final @NotNull DataMetricsImpl metrics, final int maximumSize, final @NotNull Duration idleTime) {
+        if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be positive");
+
+        this.format = format;
+        this.engine = engine;
+        this.metrics = metrics;
+        this.maximumSize = maximumSize;
+        this.idleMillis = idleTime.toMillis();
+        this.lastSweep = System.currentTimeMillis();
+    }
+
+    /**
+     * Retrieves the cached document of the given resource, parsing it if absent or stale.
+     *
+     * @param resource The resource.
+     * @return The cached document.
+     */
+    public @NotNull DataDocument document(final @NotNull DataResourceBase<?> resource) {
+        return document(resource.file(), DataMetricsImpl.type(resource));
+    }
+
+    /**
+     * Retrieves and acquires the cached document of the given resource, to mutate it.
+     * The document stays cached until it is {@link DataDocument#release() released}.
+     *
+     * @param resource The resource.
+     * @return The acquired document.
+     */
+    public @NotNull DataDocument acquire(final @NotNull DataResourceBase<?> resource) {
+        return acquire(resource.file(), DataMetricsImpl.type(resource));
+    }
+
+    /**
+     * Retrieves and acquires the cached document for the given file, to mutate it.
+     *
+     * @param file The resolved file of the resource.
+     * @param type The metrics type of the resource.
+     * @return The acquired document.
+     * @see #acquire(DataResourceBase)
+     */
+    public @NotNull DataDocument acquire(final @NotNull File file, final @NotNull String type) {
+        while (true) {
+            // Only fails if the document was dropped right after the lookup, the next lookup doesn't return it.
+            final DataDocument document = document(file, type);
+            if (document.acquire()) return document;
+        }
+    }
+
+    /**
+     * Retrieves the cached document for the given file, parsing it if absent or stale.
+     *
+     * @param file The resolved file of the resource.
+     * @param type The metrics type of the resource.
+     * @return The cached document.
+     */
+    public @NotNull DataDocument document(final @NotNull File file, final @NotNull String type) {
+        // Dirty and pinned documents are served without the capturing compute lambda, hot updates don't allocate.
+        final DataDocument current = documents.get(file);
+        if (current != null && !current.retired() && (current.dirty() || pinned.contains(file))) {
+            metrics.hit(type);
+            current.touch();
+            evict();
+            return current;
+        }
+
+        final DataDocument document = documents.compute(file, (key, cached) -> {
+            // Dirty and acquired documents win over external edits, their changes would be lost otherwise.
+            if (cached != null && !cached.retired() && (cached.dirty() || pinned.contains(key) || !cached.stale(engine.version(key)) || !cached.retire())) {
+                metrics.hit(type);
+                return cached;
+            }
+
+            return load(key, type);
+        });
+
+        document.touch();
+        evict();
+
+        return document;
+    }
+
+    /**
+     * Retrieves the cached document for the given file, or parses the file without adding it to the cache.
+     * Used by bulk reads, which would otherwise evict the working set.
+     *
+     * @param file The resolved file of the resource.
+     * @param type The metrics type of the resource.
+     * @return The cached or freshly parsed document.
+     */
+    public @NotNull DataDocument peek(final @NotNull File file, final @NotNull String type) {
+        final DataDocument cached = documents.get(file);
+        if (cached != null) {
+            metrics.hit(type);
+            return cached;
+        }
+
+        return load(file, type);
+    }
+
+    private @NotNull DataDocument load(final @NotNull File file, final @NotNull String type) {
+        metrics.miss(type);
+
+        final long start = System.nanoTime();
+        final DataDocument loaded = DataDocument.load(engine, file, format, type);
+        final long elapsed = System.nanoTime() - start;
+
+        metrics.loaded(type, elapsed, loaded.size());
+        metrics.blocked(type, elapsed);
+        return loaded;
+    }
+
+    /**
+     * Retrieves the values at the given paths, from memory if the document is cached.
+     * Otherwise only the requested values are decoded from the file, without adding it to the cache.
+     *
+     * @param file  The resolved file of the resource.
+     * @param type  The metrics type of the resource.
+     * @param paths The paths to retrieve.
+     * @return The values by path, without entries for absent paths.
+     */
+    public @NotNull Map<NodePath, Object> project(final @NotNull File file, final @NotNull String type, final @NotNull Set<NodePath> paths) {
+        final DataDocument cached = documents.get(file);
+
+        if (cached != null) {
+            metrics.hit(type);
+            return values(cached, paths);
+        }
+
+        final long start = System.nanoTime();
+        final Map<NodePath, Object> values;
+        final int size;
+
+        try {
+            // Values changed by delta saves are only known once the journal is replayed over the whole document.
+            if (engine.journal(file) != null) return values(load(file, type), paths);
+
+            metrics.miss(type);
+
+            final ByteBuffer content = engine.read(file);
+            size = content.remaining();
+            values = format.project(content, paths);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse " + file, e);
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        metrics.loaded(type, elapsed, size);
+        metrics.blocked(type, elapsed);
+        return values;
+    }
+
+    private static @NotNull Map<NodePath, Object> values(final @NotNull DataDocument document, final @NotNull Set<NodePath> paths) {
+        return document.read(configuration -> {
+            final Map<NodePath, Object> values = new LinkedHashMap<>();
+
+            for (final NodePath path : paths) {
+                final Object value = configuration.get(path.key());
+                if (value != null) values.put(path, value);
+            }
+
+            return values;
+        });
+    }
+
+    /**
+     * Retrieves the cached document for the given file without loading it.
+     *
+     * @param file The resolved file of the resource.
+     * @return The cached document, or null if it isn't cached.
+     */
+    public @Nullable DataDocument cached(final @NotNull File file) {
+        return documents.get(file);
+    }
+
+    /**
+     * Retrieves a snapshot of every cached document.
+     *
+     * @return The cached documents.
+     */
+    public @NotNull Collection<DataDocument> documents() {
+        return new ArrayList<>(documents.values());
+    }
+
+    /**
+     * Drops the cached document of the given file, discarding unwritten changes. The next access parses it again.
+     *
+     * @param file The resolved file of the resource.
+     */
+    public void invalidate(final @NotNull File file) {
+        documents.remove(file);
+    }
+
+    /**
+     * Drops the cached document of the given file unless it holds unwritten changes.
+     *
+     * @param file The resolved file of the resource.
+     */
+    public void release(final @NotNull File file) {
+        documents.computeIfPresent(file, (key, document) -> document.dirty() || pinned.contains(key) || !document.retire() ? document : null);
+    }
+
+    /**
+     * Runs an action on the given file while it has no cached document, dropping a clean and unused one first.
+     * Loading or acquiring the document of the file waits for the action, so it can move or replace the file.
+     *
+     * @param file   The resolved file of the resource.
+     * @param action The action, which must not access this cache.
+     * @param <V>    The type of the action's result.
+     * @return The result of the action, or null if the file is pinned or its document is dirty or acquired.
+     */
+    public <V> @Nullable V exclusive(final @NotNull File file, final @NotNull Supplier<V> action) {
+        final AtomicReference<V> result = new AtomicReference<>();
+
+        documents.compute(file, (key, cached) -> {
+            if (pinned.contains(key) || (cached != null && !cached.retired() && (cached.dirty() || !cached.retire()))) return cached;
+
+            result.set(action.get());
+            return null;
+        });
+
+        return result.get();
+    }
+
+    /**
+     * Keeps the document of the given file resident until it is unpinned.
+     *
+     * @param file The resolved file of the resource.
+     */
+    public void pin(final @NotNull File file) {
+        pinned.add(file);
+    }
+
+    /**
+     * Allows the document of the given file to be evicted again.
+     *
+     * @param file The resolved file of the resource.
+     */
+    public void unpin(final @NotNull File file) {
+        pinned.remove(file);
+    }
+
+    /**
+     * Checks whether the document of the given file is kept resident.
+     *
+     * @param file The resolved file of the resource.
+     * @return True if the file is pinned.
+     */
+    public boolean pinned(final @NotNull File file) {
+        return pinned.contains(file);
+    }
+
+    /**
+     * Drops every cached document.
+     */
+    public void invalidateAll() {
+        documents.clear();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private void evict() {
+        final long now = System.currentTimeMillis();
+
+        if (idleMillis > 0 && now - lastSweep >= Math.max(idleMillis / 4, 1000)) {
+            lastSweep = now;
+            documents.values().removeIf(document -> !pinned.contains(document.file()) && now - document.accessed() > idleMillis && document.retire());
+        }
+
+        if (documents.size() <= maximumSize) return;
+
+        // Trim to 90% of the maximum size, so the sort isn't repeated on every following insert.
+        final List<DataDocument> ordered = new ArrayList<>(documents.values());
+        ordered.sort(Comparator.comparingLong(DataDocument::accessed));
+
+        int excess = ordered.size() - (maximumSize - maximumSize / 10);
+        for (int i = 0; i < ordered.size() && excess > 0; i++) {
+            final DataDocument document = ordered.get(i);
+            if (pinned.contains(document.file()) || !document.retire()) continue;
+            if (documents.remove(document.file(), document)) excess--;
+        }
+    }
+}
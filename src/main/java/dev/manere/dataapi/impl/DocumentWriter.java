@@ -0,0 +1,386 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataAPI;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persists dirty documents in the background (write-behind).
+ * Editors only mark documents dirty, a flusher thread then coalesces all changes of a document into a single write,
+ * either every flush interval or as soon as the document collects enough changes.
+ * With group commit enabled, every document flushed in the same cycle shares one durability barrier.
+ * With a {@link WriteAheadLog}, every full flush also checkpoints the log.
+ */
+public class DocumentWriter {
+    private static final int SAVE_CHUNK = 64;
+    private static final long SAVE_PROGRESS = TimeUnit.SECONDS.toNanos(1);
+
+    private final DocumentCache cache;
+    private final StorageEngine engine;
+    private final DataMetricsImpl metrics;
+    private final DataIndexes indexes;
+    private final WriteAheadLog log;
+    private final int threshold;
+    private final boolean syncWrites;
+    private final boolean groupCommit;
+    private final Logger logger;
+    private final ScheduledExecutorService flusher;
+
+    public DocumentWriter(final @NotNull DocumentCache cache, final @NotNull StorageEngine engine, final @NotNull DataMetricsImpl metrics, final @NotNull DataIndexes indexes, final @Nullable WriteAheadLog log, final @NotNull Duration interval, final int threshold, final boolean syncWrites, final boolean groupCommit, final @NotNull Logger logger) {
+        this.cache = cache;
+        this.engine = engine;
+        this.metrics = metrics;
+        this.indexes = indexes;
+        this.log = log;
+        this.threshold = threshold;
+        this.syncWrites = syncWrites;
+        this.groupCommit = groupCommit;
+        this.logger = logger;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "DataAPI Flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final long period = Math.max(interval.toMillis(), 1);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks the document dirty, scheduling an early flush once it reaches the change threshold.
+     * Must be called after each mutation of the document.
+     *
+     * @param document The mutated document.
+     */
+    public void changed(final @NotNull DataDocument document) {
+        final int changes = document.changed();
+        if (threshold > 0 && changes % threshold == 0 && !flusher.isShutdown()) {
+            flusher.execute(() -> flushQuietly(document));
+        }
+    }
+
+    /**
+     * Writes the document to disk on the calling thread if it is dirty.
+     * Every change recorded up to the snapshot is coalesced into one write that replaces the stored content atomically.
+     *
+     * @param document The document to flush.
+     * @return True if the file was written.
+     */
+    public boolean flush(final @NotNull DataDocument document) {
+        // The snapshot may wait on a concurrent flush, which waits on the transaction for the read lock.
+        if (document.lock().isWriteLockedByCurrentThread()) throw new IllegalStateException("Can't save " + document.file() + " inside a transaction on it");
+
+        final long start = System.nanoTime();
+        final DataDocument.Snapshot snapshot = document.snapshot(engine.journaled(document.file()));
+        if (snapshot == null) return false;
+
+        try {
+            write(snapshot);
+        } catch (IOException e) {
+            snapshot.failed();
+            throw new RuntimeException(e);
+        }
+
+        snapshot.written(engine.version(document.file()));
+
+        final long elapsed = System.nanoTime() - start;
+        metrics.saved(document.type(), elapsed, snapshot.content().length);
+        metrics.blocked(document.type(), elapsed);
+        return true;
+    }
+
+    private void write(final @NotNull DataDocument.Snapshot snapshot) throws IOException {
+        final DataDocument document = snapshot.document();
+
+        if (snapshot.delta()) engine.append(document.file(), snapshot.base(), snapshot.content(), syncWrites);
+        else engine.write(document.file(), snapshot.content(), syncWrites);
+    }
+
+    /**
+     * Writes every dirty document to disk on the calling thread, then every changed index.
+     * Indexes are written after the documents, so a persisted index never runs ahead of the resources.
+     *
+     * @return The amount of written documents.
+     */
+    public int flushAll() {
+        // Sealed first, every logged store then belongs to a document this flush saves.
+        final long sealed = log == null ? 0 : log.rotate();
+
+        try {
+            final int flushed = flushDocuments();
+            if (log != null) log.checkpoint(sealed);
+
+            return flushed;
+        } finally {
+            indexes.flush();
+        }
+    }
+
+    private int flushDocuments() {
+        if (groupCommit) return commit(cache.documents());
+
+        int flushed = 0;
+        RuntimeException failure = null;
+
+        for (final DataDocument document : cache.documents()) {
+            try {
+                if (flush(document)) flushed++;
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+
+        if (failure != null) throw failure;
+        return flushed;
+    }
+
+    /**
+     * Writes every dirty document to disk on parallel workers, then every changed index.
+     * Documents are handed out by directory, so each worker writes neighbouring files, as one group commit per
+     * chunk if group commit is enabled. Workers take no more documents once the timeout passes, the remaining
+     * documents stay dirty and are logged. Progress is logged every second.
+     *
+     * @param workers The amount of workers.
+     * @param timeout The time after which no more documents are written.
+     * @return The report of the save.
+     */
+    public @NotNull DataAPI.SaveReport saveAll(final int workers, final @NotNull Duration timeout) {
+        final long start = System.nanoTime();
+        final long deadline = start + timeout.toNanos();
+
+        // Sealed first like in flushAll(), the log is only checkpointed if every document was saved.
+        final long sealed = log == null ? 0 : log.rotate();
+
+        final List<DataDocument> dirty = new ArrayList<>();
+        for (final DataDocument document : cache.documents()) if (document.dirty()) dirty.add(document);
+
+        dirty.sort(Comparator.comparing((DataDocument document) -> document.file().getAbsoluteFile().getParent())
+                .thenComparing(document -> document.file().getName()));
+
+        final Queue<List<DataDocument>> chunks = new ConcurrentLinkedQueue<>();
+        for (int from = 0; from < dirty.size(); ) {
+            final String directory = dirty.get(from).file().getAbsoluteFile().getParent();
+
+            int to = from + 1;
+            while (to < dirty.size() && to - from < SAVE_CHUNK && dirty.get(to).file().getAbsoluteFile().getParent().equals(directory)) to++;
+
+            chunks.add(dirty.subList(from, to));
+            from = to;
+        }
+
+        final AtomicInteger saved = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+
+        final Runnable worker = () -> {
+            List<DataDocument> chunk;
+
+            while (System.nanoTime() < deadline && (chunk = chunks.poll()) != null) {
+                try {
+                    if (groupCommit) {
+                        saved.addAndGet(group(chunk));
+                        done.addAndGet(chunk.size());
+                        continue;
+                    }
+
+                    for (final DataDocument document : chunk) {
+                        if (System.nanoTime() >= deadline) break;
+
+                        if (flush(document)) saved.incrementAndGet();
+                        done.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    logger.log(Level.SEVERE, "Failed to save data resources in " + chunk.get(0).file().getAbsoluteFile().getParent(), e);
+                }
+            }
+        };
+
+        final int threads = Math.max(1, Math.min(workers, chunks.size()));
+        final AtomicInteger counter = new AtomicInteger();
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "DataAPI Saver #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < threads; i++) pool.execute(worker);
+        pool.shutdown();
+
+        boolean finished = false;
+        try {
+            while (!(finished = pool.awaitTermination(Math.min(SAVE_PROGRESS, Math.max(deadline - System.nanoTime(), 0)), TimeUnit.NANOSECONDS))) {
+                if (System.nanoTime() >= deadline) break;
+                logger.info("Saving data resources: " + done.get() + "/" + dirty.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Workers still writing when the deadline passed finish their current write in the background.
+        final List<File> unsaved = new ArrayList<>();
+        for (final DataDocument document : dirty) if (document.dirty()) unsaved.add(document.file());
+
+        try {
+            if (log != null && finished && !failed.get() && unsaved.isEmpty()) log.checkpoint(sealed);
+        } finally {
+            indexes.flush();
+        }
+
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        logger.info("Saved " + saved.get() + " of " + dirty.size() + " data resources in " + elapsed.toMillis() + " ms on " + threads + " workers");
+
+        if (!unsaved.isEmpty()) {
+            final StringBuilder message = new StringBuilder("Left " + unsaved.size() + " data resources with unsaved changes:");
+            for (final File file : unsaved) message.append("\n - ").append(file);
+            logger.warning(message.toString());
+        }
+
+        return new DataAPI.SaveReport(saved.get(), unsaved, elapsed, finished && !failed.get());
+    }
+
+    /**
+     * Writes the dirty documents as one group commit, so a single barrier covers all of them.
+     */
+    private synchronized int commit(final @NotNull Iterable<DataDocument> documents) {
+        return group(documents);
+    }
+
+    /**
+     * Writes the dirty documents as one group commit. Unlike {@link #commit(Iterable)} commits run concurrently,
+     * which {@link #saveAll(int, Duration)} uses for documents of different directories.
+     * <p>
+     * Each snapshot holds the flush lock of its document until the batch is committed. Every group takes them
+     * in the order of the files, so concurrent groups over overlapping documents can't deadlock.
+     */
+    private int group(final @NotNull Iterable<DataDocument> documents) {
+        final long start = System.nanoTime();
+        final List<DataDocument> dirty = new ArrayList<>();
+        for (final DataDocument document : documents) if (document.dirty()) dirty.add(document);
+        dirty.sort(Comparator.comparing(document -> document.file().getPath()));
+
+        final List<DataDocument.Snapshot> snapshots = new ArrayList<>();
+        final StorageEngine.Batch batch = engine.batch(syncWrites);
+        int appended = 0;
+        RuntimeException failure = null;
+
+        for (final DataDocument document : dirty) {
+            final DataDocument.Snapshot snapshot;
+
+            try {
+                snapshot = document.snapshot(engine.journaled(document.file()));
+            } catch (RuntimeException e) {
+                failure = failure(failure, e);
+                continue;
+            }
+
+            if (snapshot == null) continue;
+
+            final long appendStart = System.nanoTime();
+
+            try {
+                // Deltas are appended right away, only rewrites share the barrier.
+                if (snapshot.delta()) {
+                    write(snapshot);
+                    snapshot.written(engine.version(document.file()));
+                } else {
+                    batch.add(document.file(), snapshot.content());
+                    snapshots.add(snapshot);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Nothing fails after written() released the snapshot, so it still holds its flush lock here.
+                snapshot.failed();
+                failure = failure(failure, e);
+                continue;
+            }
+
+            if (snapshot.delta()) {
+                metrics.saved(document.type(), System.nanoTime() - appendStart, snapshot.content().length);
+                appended++;
+            }
+        }
+
+        int written = 0;
+
+        try {
+            batch.commit();
+
+            for (; written < snapshots.size(); written++) {
+                final DataDocument.Snapshot snapshot = snapshots.get(written);
+                snapshot.written(engine.version(snapshot.document().file()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Every snapshot not marked written still holds its flush lock, its changes are retried on the next flush.
+            for (int i = written; i < snapshots.size(); i++) snapshots.get(i).failed();
+            failure = failure(failure, e);
+        }
+
+        if (failure != null) throw failure;
+
+        // Every document waits for the whole batch, the blocked time is shared between them.
+        final long elapsed = System.nanoTime() - start;
+        for (final DataDocument.Snapshot snapshot : snapshots) {
+            final DataDocument document = snapshot.document();
+            metrics.saved(document.type(), elapsed, snapshot.content().length);
+            metrics.blocked(document.type(), elapsed / snapshots.size());
+        }
+
+        return snapshots.size() + appended;
+    }
+
+    private static @NotNull RuntimeException failure(final @Nullable RuntimeException failure, final @NotNull Exception e) {
+        if (failure == null) return e instanceof RuntimeException runtime ? runtime : new RuntimeException(e);
+
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    /**
+     * Stops the flusher thread and writes every remaining dirty document.
+     */
+    public void close() {
+        flusher.shutdown();
+
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flushAll();
+    }
+
+    private void flushQuietly() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to save data resources, retrying on the next flush", e);
+        }
+    }
+
+    private void flushQuietly(final @NotNull DataDocument document) {
+        try {
+            flush(document);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to save " + document.file() + ", retrying on the next flush", e);
+        }
+    }
+}
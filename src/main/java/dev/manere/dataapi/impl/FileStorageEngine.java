@@ -0,0 +1,144 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.util.AtomicFiles;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores every resource in its own file, replaced atomically on each write.
+ * Files of at least the mapping threshold are memory-mapped instead of copied onto the heap,
+ * so formats decode them straight from the page cache.
+ * With delta saves enabled, saves may append to a {@link DeltaJournal} next to the file instead.
+ */
+public class FileStorageEngine implements StorageEngine {
+    private final Directories directories;
+    private final long mapThreshold;
+    private final boolean deltas;
+
+    public FileStorageEngine(final @NotNull Directories directories, final long mapThreshold, final boolean deltas) {
+        this.directories = directories;
+        this.mapThreshold = mapThreshold;
+        this.deltas = deltas;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ByteBuffer read(final @NotNull File file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+
+            // The mapping outlives the channel, and writes replace the file rather than modify it in place.
+            if (mapThreshold > 0 && size >= mapThreshold) return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size > Integer.MAX_VALUE) throw new IOException(file + " is too large to read");
+
+            final ByteBuffer content = ByteBuffer.allocate((int) size);
+            while (content.hasRemaining()) {
+                if (channel.read(content) < 0) break;
+            }
+
+            return content.flip();
+        } catch (NoSuchFileException e) {
+            return ByteBuffer.allocate(0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long version(final @NotNull File file) {
+        return file.lastModified();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final @NotNull File file, final byte @NotNull [] content, final boolean force) throws IOException {
+        final Path target = file.toPath();
+
+        try {
+            directories.create(target.getParent());
+            AtomicFiles.write(target, content, force);
+        } catch (IOException e) {
+            directories.forget(target.getParent());
+            throw e;
+        }
+
+        if (deltas) DeltaJournal.delete(file);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Batch batch(final boolean force) {
+        final AtomicFiles.Batch batch = AtomicFiles.batch(force);
+        final List<File> files = new ArrayList<>();
+
+        return new Batch() {
+            @Override
+            public void add(final @NotNull File file, final byte @NotNull [] content) throws IOException {
+                final Path target = file.toPath();
+
+                try {
+                    directories.create(target.getParent());
+                    batch.add(target, content);
+                    files.add(file);
+                } catch (IOException e) {
+                    directories.forget(target.getParent());
+                    throw e;
+                }
+            }
+
+            @Override
+            public void commit() throws IOException {
+                batch.commit();
+                if (deltas) for (final File file : files) DeltaJournal.delete(file);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean journaled(final @NotNull File file) {
+        return deltas;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable ByteBuffer journal(final @NotNull File file) throws IOException {
+        if (!deltas) return null;
+
+        try {
+            return ByteBuffer.wrap(Files.readAllBytes(DeltaJournal.file(file).toPath()));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void append(final @NotNull File file, final int base, final byte @NotNull [] record, final boolean force) throws IOException {
+        DeltaJournal.append(file, base, record, force);
+    }
+}
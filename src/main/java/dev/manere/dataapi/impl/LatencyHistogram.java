@@ -0,0 +1,87 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataMetrics;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram splitting every power of two nanoseconds into 16 linear buckets,
+ * so percentiles are within 1/16 of the recorded latencies.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final LongAdder[] buckets = new LongAdder[SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(final long nanos) {
+        final long clamped = Math.max(nanos, 1);
+
+        buckets[bucket(clamped)].increment();
+        total.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    /**
+     * Finds the bucket of a positive latency, latencies below 16 nanoseconds have one bucket each.
+     */
+    static int bucket(final long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+
+        final int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Finds the highest latency of a bucket.
+     */
+    static long highest(final int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+
+    public @NotNull DataMetrics.Latency snapshot() {
+        final long[] counts = new long[buckets.length];
+        long count = 0;
+
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+
+        final long max = this.max.get();
+        return new DataMetrics.Latency(count, total.sum(), max, percentile(counts, count, max, 0.5), percentile(counts, count, max, 0.99));
+    }
+
+    private static long percentile(final long @NotNull [] counts, final long count, final long max, final double percentile) {
+        if (count == 0) return 0;
+
+        final long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            // The highest bucket can't hold anything past the maximum, which a concurrent reset may have dropped.
+            if (seen >= rank) return max == 0 ? highest(i) : Math.min(highest(i), max);
+        }
+
+        return max;
+    }
+
+    public void reset() {
+        for (final LongAdder bucket : buckets) bucket.reset();
+        total.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,188 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataLayout;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves the player files of a folder into a layout.
+ * Each file is moved with a single atomic rename, so an interrupted migration leaves every file in either
+ * its old or its new location, both of which are resolved, and running it again resumes where it stopped.
+ * Files of online players and files being written to are skipped. Resource instances resolved before their file moved
+ * keep using the old location, so migrations should run before the resources are used.
+ */
+public class LayoutMigration {
+    private static final int BATCH_SIZE = 1024;
+
+    private final Path folder;
+    private final String extension;
+    private final DataLayout layout;
+    private final DocumentCache cache;
+    private final DocumentWriter writer;
+    private final Directories directories;
+    private final ForkJoinPool pool;
+    private final Logger logger;
+
+    public LayoutMigration(final @NotNull File folder, final @NotNull String extension, final @NotNull DataLayout layout, final @NotNull DocumentCache cache, final @NotNull DocumentWriter writer, final @NotNull Directories directories, final @NotNull ForkJoinPool pool, final @NotNull Logger logger) {
+        this.folder = folder.toPath();
+        this.extension = "." + extension;
+        this.layout = layout;
+        this.cache = cache;
+        this.writer = writer;
+        this.directories = directories;
+        this.pool = pool;
+        this.logger = logger;
+    }
+
+    /**
+     * Moves every player file not yet in the layout, in parallel batches.
+     *
+     * @return The amount of moved files.
+     */
+    public int run() {
+        final AtomicInteger moved = new AtomicInteger();
+        final List<Path> sources = sources();
+
+        for (int start = 0; start < sources.size(); start += BATCH_SIZE) {
+            final List<Path> batch = sources.subList(start, Math.min(start + BATCH_SIZE, sources.size()));
+
+            pool.submit(() -> batch.parallelStream().forEach(source -> {
+                if (move(source)) moved.incrementAndGet();
+            })).join();
+
+            logger.info("Migrated " + moved.get() + " of " + sources.size() + " player files in " + folder + " to the " + layout.name().toLowerCase() + " layout");
+        }
+
+        return moved.get();
+    }
+
+    private @NotNull List<Path> sources() {
+        final List<Path> sources = new ArrayList<>();
+
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(folder)) {
+            for (final Path entry : entries) {
+                final String name = entry.getFileName().toString();
+
+                if (layout == DataLayout.SHARDED && player(name) && Files.isRegularFile(entry)) {
+                    sources.add(entry);
+                } else if (layout == DataLayout.FLAT && PlayerFiles.shard(name) && Files.isDirectory(entry)) {
+                    shards(entry, sources);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return sources;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return sources;
+    }
+
+    private void shards(final @NotNull Path shard, final @NotNull List<Path> sources) throws IOException {
+        try (final DirectoryStream<Path> inner = Files.newDirectoryStream(shard, path -> PlayerFiles.shard(path.getFileName().toString()))) {
+            for (final Path directory : inner) {
+                try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                    final Iterator<Path> iterator = files.iterator();
+                    while (iterator.hasNext()) {
+                        final Path file = iterator.next();
+                        if (player(file.getFileName().toString())) sources.add(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean player(final @NotNull String file) {
+        return file.endsWith(extension) && PlayerFiles.player(file.substring(0, file.length() - extension.length()));
+    }
+
+    private boolean move(final @NotNull Path source) {
+        final String file = source.getFileName().toString();
+        final String name = file.substring(0, file.length() - extension.length());
+        final File target = layout == DataLayout.SHARDED
+                ? PlayerFiles.sharded(folder.toFile(), name, extension.substring(1))
+                : PlayerFiles.flat(folder.toFile(), name, extension.substring(1));
+
+        // A resource resolves its file once, so the resident resource of an online player keeps using the old file.
+        if (cache.pinned(source.toFile())) {
+            logger.warning("Not migrating " + source + ", it is in use by an online player");
+            return false;
+        }
+
+        // Pending changes must reach the old file before it moves, the cached document is dropped with it.
+        final DataDocument document = cache.cached(source.toFile());
+        if (document != null) writer.flush(document);
+
+        // Moved while the document can be neither loaded nor acquired, so no change can be made to the old file meanwhile.
+        // A document dirty again or acquired by an editor is left for the next run.
+        final Boolean moved = cache.exclusive(source.toFile(), () -> move(source, target));
+
+        if (moved == null) {
+            logger.warning("Not migrating " + source + ", it is being written to");
+            return false;
+        }
+
+        return moved;
+    }
+
+    private boolean move(final @NotNull Path source, final @NotNull File target) {
+        // A rename would silently replace the target, both copies are kept for an admin to resolve instead.
+        if (target.exists()) {
+            logger.warning("Not migrating " + source + ", " + target + " already exists");
+            return false;
+        }
+
+        // The delta journal moves first, an interrupted migration then finds it next to the file once that moves too.
+        final Path journal = DeltaJournal.file(source.toFile()).toPath();
+        final Path targetJournal = DeltaJournal.file(target).toPath();
+        final boolean journaled = Files.exists(journal);
+
+        try {
+            directories.create(target.getParentFile().toPath());
+            if (journaled) Files.move(journal, targetJournal, StandardCopyOption.REPLACE_EXISTING);
+
+            try {
+                Files.move(source, target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target.toPath());
+            }
+        } catch (FileAlreadyExistsException e) {
+            restore(targetJournal, journal, journaled);
+            logger.warning("Not migrating " + source + ", " + target + " already exists");
+            return false;
+        } catch (IOException e) {
+            restore(targetJournal, journal, journaled);
+            logger.log(Level.SEVERE, "Failed to migrate " + source, e);
+            return false;
+        }
+
+        return true;
+    }
+
+    private void restore(final @NotNull Path from, final @NotNull Path to, final boolean journaled) {
+        if (!journaled || !Files.exists(from)) return;
+
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to move " + from + " back to " + to, e);
+        }
+    }
+}
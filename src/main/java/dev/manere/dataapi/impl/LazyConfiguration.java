@@ -0,0 +1,212 @@
+package dev.manere.dataapi.impl;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A configuration whose top-level subtrees are decoded the first time a path inside them is touched.
+ * Until then a deferred entry holds a placeholder, so keys keep their order, and its subtree keeps the encoded
+ * content it's decoded from. Reading every value, such as a deep {@link #getValues(boolean)} or a save,
+ * materializes all remaining subtrees.
+ */
+public class LazyConfiguration extends YamlConfiguration {
+    /**
+     * The content size from which formats load documents lazily, smaller documents aren't worth the bookkeeping.
+     */
+    public static final int THRESHOLD = 8 * 1024;
+
+    /**
+     * The value held by deferred entries until they are materialized.
+     */
+    public static final String PLACEHOLDER = "\0";
+
+    private final Map<String, Subtree> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Decodes a deferred subtree into its configuration.
+     */
+    @FunctionalInterface
+    public interface Subtree {
+        /**
+         * Decodes the subtree and stores it under its key, replacing the placeholder.
+         *
+         * @param configuration The configuration to store into.
+         * @param key           The top-level key of the subtree.
+         * @throws IOException If the content is malformed.
+         */
+        void load(final @NotNull LazyConfiguration configuration, final @NotNull String key) throws IOException;
+    }
+
+    /**
+     * Defers decoding of a top-level entry which already holds the {@link #PLACEHOLDER}.
+     *
+     * @param key     The top-level key.
+     * @param subtree The subtree decoding the entry.
+     */
+    public void defer(final @NotNull String key, final @NotNull Subtree subtree) {
+        pending.put(key, subtree);
+    }
+
+    /**
+     * Retrieves the amount of top-level entries which weren't decoded yet.
+     *
+     * @return The amount of deferred entries.
+     */
+    public int deferred() {
+        return pending.size();
+    }
+
+    private void materialize(final @NotNull String path) {
+        // Subtrees store themselves through the overridden methods while holding the monitor.
+        if (pending.isEmpty() || Thread.holdsLock(this)) return;
+
+        final int separator = path.indexOf(options().pathSeparator());
+        final String key = separator < 0 ? path : path.substring(0, separator);
+        if (!pending.containsKey(key)) return;
+
+        synchronized (this) {
+            load(key);
+        }
+    }
+
+    private void materializeAll() {
+        if (pending.isEmpty() || Thread.holdsLock(this)) return;
+
+        synchronized (this) {
+            for (final String key : new ArrayList<>(pending.keySet())) load(key);
+        }
+    }
+
+    private void load(final @NotNull String key) {
+        final Subtree subtree = pending.get(key);
+        if (subtree == null) return;
+
+        try {
+            subtree.load(this, key);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse " + key, e);
+        }
+
+        // Removed only once stored, concurrent readers wait on the monitor instead of seeing the placeholder.
+        pending.remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable Object get(final @NotNull String path, final @Nullable Object def) {
+        materialize(path);
+        return super.get(path, def);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void set(final @NotNull String path, final @Nullable Object value) {
+        materialize(path);
+        super.set(path, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ConfigurationSection createSection(final @NotNull String path) {
+        materialize(path);
+        return super.createSection(path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ConfigurationSection createSection(final @NotNull String path, final @NotNull Map<?, ?> map) {
+        materialize(path);
+        return super.createSection(path, map);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull List<String> getComments(final @NotNull String path) {
+        materialize(path);
+        return super.getComments(path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull List<String> getInlineComments(final @NotNull String path) {
+        materialize(path);
+        return super.getInlineComments(path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setComments(final @NotNull String path, final @Nullable List<String> comments) {
+        materialize(path);
+        super.setComments(path, comments);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setInlineComments(final @NotNull String path, final @Nullable List<String> comments) {
+        materialize(path);
+        super.setInlineComments(path, comments);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Set<String> getKeys(final boolean deep) {
+        // Top-level keys are known without decoding, placeholders keep their order.
+        if (deep) materializeAll();
+        return super.getKeys(deep);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Map<String, Object> getValues(final boolean deep) {
+        materializeAll();
+        return super.getValues(deep);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull String saveToString() {
+        materializeAll();
+        return super.saveToString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void loadFromString(final @NotNull String contents) throws InvalidConfigurationException {
+        pending.clear();
+        super.loadFromString(contents);
+    }
+}
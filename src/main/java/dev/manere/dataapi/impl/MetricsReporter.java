@@ -0,0 +1,97 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically reports metric snapshots, either to the plugin logger or as rows appended to a CSV file.
+ */
+public class MetricsReporter {
+    private static final String CSV_HEADER = "timestamp,type,loads,load_mean_us,load_p99_us,load_max_us,saves,save_mean_us,save_p99_us,save_max_us,bytes_read,bytes_written,cache_hit_ratio,dirty,main_thread_blocked_ms";
+
+    private final DataMetrics metrics;
+    private final File csv;
+    private final Logger logger;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsReporter(final @NotNull DataMetrics metrics, final @NotNull Duration interval, final @Nullable File csv, final @NotNull Logger logger) {
+        this.metrics = metrics;
+        this.csv = csv;
+        this.logger = logger;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "DataAPI Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final long period = Math.max(interval.toMillis(), 1);
+        scheduler.scheduleAtFixedRate(this::report, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void report() {
+        final Instant now = Instant.now();
+
+        try {
+            final StringBuilder rows = new StringBuilder();
+            if (csv != null && !csv.exists()) rows.append(CSV_HEADER).append('\n');
+
+            for (final DataMetrics.Snapshot snapshot : metrics.snapshot().values()) {
+                if (csv == null) logger.info(line(snapshot));
+                else rows.append(row(now, snapshot)).append('\n');
+            }
+
+            if (csv != null) {
+                Files.writeString(csv.toPath(), rows, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to report DataAPI metrics", e);
+        }
+    }
+
+    private static @NotNull String line(final @NotNull DataMetrics.Snapshot snapshot) {
+        return String.format(Locale.ROOT,
+                "[%s] loads %d (mean %.1fus, p99 %.1fus), saves %d (mean %.1fus, p99 %.1fus), read %d B, written %d B, cache hits %.1f%%, dirty %d, main thread blocked %.1fms",
+                snapshot.type(),
+                snapshot.load().count(), micros(snapshot.load().meanNanos()), micros(snapshot.load().p99Nanos()),
+                snapshot.save().count(), micros(snapshot.save().meanNanos()), micros(snapshot.save().p99Nanos()),
+                snapshot.bytesRead(), snapshot.bytesWritten(),
+                snapshot.cacheHitRatio() * 100, snapshot.dirty(),
+                snapshot.mainThreadBlockedNanos() / 1_000_000D
+        );
+    }
+
+    private static @NotNull String row(final @NotNull Instant now, final @NotNull DataMetrics.Snapshot snapshot) {
+        return String.format(Locale.ROOT,
+                "%s,%s,%d,%.1f,%.1f,%.1f,%d,%.1f,%.1f,%.1f,%d,%d,%.4f,%d,%.3f",
+                now, snapshot.type(),
+                snapshot.load().count(), micros(snapshot.load().meanNanos()), micros(snapshot.load().p99Nanos()), micros(snapshot.load().maxNanos()),
+                snapshot.save().count(), micros(snapshot.save().meanNanos()), micros(snapshot.save().p99Nanos()), micros(snapshot.save().maxNanos()),
+                snapshot.bytesRead(), snapshot.bytesWritten(),
+                snapshot.cacheHitRatio(), snapshot.dirty(),
+                snapshot.mainThreadBlockedNanos() / 1_000_000D
+        );
+    }
+
+    private static double micros(final long nanos) {
+        return nanos / 1_000D;
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -1,29 +1,31 @@
 package dev.manere.dataapi.impl;
 
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import dev.manere.dataapi.api.AsyncDataResource;
 import dev.manere.dataapi.api.DataEditor;
 import dev.manere.dataapi.api.PlayerDataResource;
 import dev.manere.dataapi.util.FileResources;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 public class PlayerDataResourceImpl implements PlayerDataResource {
+    private final DataAPIImpl api;
     private final String parent;
     private final String name;
     private final UUID uuid;
+    private volatile File file;
 
-    public PlayerDataResourceImpl(final @NotNull String parent, final @NotNull UUID uuid) {
+    public PlayerDataResourceImpl(final @NotNull DataAPIImpl api, final @NotNull String parent, final @NotNull UUID uuid) {
+        this.api = api;
         this.parent = parent;
         this.name = uuid.toString();
         this.uuid = uuid;
     }
 
-    public PlayerDataResourceImpl(final @NotNull UUID uuid) {
+    public PlayerDataResourceImpl(final @NotNull DataAPIImpl api, final @NotNull UUID uuid) {
+        this.api = api;
         this.parent = null;
         this.name = uuid.toString();
         this.uuid = uuid;
@@ -34,15 +36,8 @@ public class PlayerDataResourceImpl implements PlayerDataResource {
      */
     @Override
     public @NotNull PlayerDataResource save() {
-        final File file = file();
-
-        final YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-
-        try {
-            config.save(file);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        final DataDocument document = api.cache().cached(file());
+        if (document != null) api.writer().flush(document);
 
         return this;
     }
@@ -52,7 +47,15 @@ public class PlayerDataResourceImpl implements PlayerDataResource {
      */
     @Override
     public @NotNull DataEditor<PlayerDataResource> editor() {
-        return new DataEditorImpl<>(this);
+        return new DataEditorImpl<>(api, this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull AsyncDataResource<PlayerDataResource> async() {
+        return new AsyncDataResourceImpl<>(api, this);
     }
 
     /**
@@ -62,7 +65,7 @@ public class PlayerDataResourceImpl implements PlayerDataResource {
     @NotNull
     @Override
     public PlayerDataResource reload() {
-        CompletableFuture.runAsync(() -> YamlConfiguration.loadConfiguration(file()));
+        api.cache().invalidate(file());
         return this;
     }
 
@@ -70,26 +73,14 @@ public class PlayerDataResourceImpl implements PlayerDataResource {
      * {@inheritDoc}
      */
     @CanIgnoreReturnValue
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     @Override
     public @NotNull File file() {
-        final File root = DataAPIImpl.apiSource().getServer().getPluginsFolder();
-        final File dataFolder = FileResources.file(root, "/data/");
-        final File pluginFolder = FileResources.file(dataFolder, "/" + DataAPIImpl.apiFolder() + "/");
-
-        if (!pluginFolder.exists()) pluginFolder.mkdirs();
-
-        File file;
-
-        if (parent == null) file = FileResources.file(pluginFolder, "/" + name + ".yml");
-        else file = FileResources.file(FileResources.file(pluginFolder, "/" + parent + "/"), "/" + name + ".yml");
+        File file = this.file;
 
-        if (!file.exists()) {
-            try {
-                file.createNewFile();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+        // Resolved once, the file and its directories are only created when the resource is first written.
+        if (file == null) {
+            final File folder = parent == null ? api.dataFolder() : FileResources.file(api.dataFolder(), "/" + parent + "/");
+            this.file = file = api.playerFile(folder, name);
         }
 
         return file;
@@ -0,0 +1,120 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataLayout;
+import dev.manere.dataapi.util.FileResources;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Resolves the files of player resources for a {@link DataLayout}.
+ */
+public class PlayerFiles {
+    /**
+     * Resolves the file of a player resource.
+     * In the sharded layout, a file not migrated yet is still used from its flat location.
+     *
+     * @param folder    The folder of the resource.
+     * @param name      The name of the resource, the UUID of the player.
+     * @param extension The file extension.
+     * @param layout    The layout of the folder.
+     * @return The file of the resource.
+     */
+    public static @NotNull File file(final @NotNull File folder, final @NotNull String name, final @NotNull String extension, final @NotNull DataLayout layout) {
+        final File flat = flat(folder, name, extension);
+        if (layout == DataLayout.FLAT) return flat;
+
+        final File sharded = sharded(folder, name, extension);
+        return !sharded.exists() && flat.exists() ? flat : sharded;
+    }
+
+    /**
+     * Checks whether a folder holds player files in the flat layout, which the sharded layout still has to resolve.
+     *
+     * @param folder    The folder of the resources.
+     * @param extension The file extension.
+     * @return True if a player file is directly in the folder.
+     */
+    public static boolean unmigrated(final @NotNull File folder, final @NotNull String extension) {
+        final String suffix = "." + extension;
+
+        // Stops at the first player file, a migrated folder only lists its shards and other resources.
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(folder.toPath())) {
+            for (final Path entry : entries) {
+                final String file = entry.getFileName().toString();
+                if (file.endsWith(suffix) && player(file.substring(0, file.length() - suffix.length())) && Files.isRegularFile(entry)) return true;
+            }
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return false;
+    }
+
+    public static @NotNull File flat(final @NotNull File folder, final @NotNull String name, final @NotNull String extension) {
+        return FileResources.file(folder, "/" + name + "." + extension);
+    }
+
+    public static @NotNull File sharded(final @NotNull File folder, final @NotNull String name, final @NotNull String extension) {
+        return FileResources.file(folder, "/" + name.substring(0, 2) + "/" + name.substring(2, 4) + "/" + name + "." + extension);
+    }
+
+    /**
+     * Checks whether the name is a player resource name, which can be sharded.
+     *
+     * @param name The name of the resource.
+     * @return True if the name is a UUID.
+     */
+    public static boolean player(final @NotNull String name) {
+        if (name.length() != 36) return false;
+
+        try {
+            UUID.fromString(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a directory name is a shard of the sharded layout.
+     *
+     * @param name The directory name.
+     * @return True if the name is two lowercase hex digits.
+     */
+    public static boolean shard(final @NotNull String name) {
+        return name.length() == 2 && hex(name.charAt(0)) && hex(name.charAt(1));
+    }
+
+    private static boolean hex(final char character) {
+        return (character >= '0' && character <= '9') || (character >= 'a' && character <= 'f');
+    }
+
+    /**
+     * Retrieves the folder a resource file belongs to, skipping its shard directories.
+     *
+     * @param file   The resource file.
+     * @param layout The layout of the folder.
+     * @return The folder of the resource.
+     */
+    public static @NotNull File folder(final @NotNull File file, final @NotNull DataLayout layout) {
+        final File parent = file.getParentFile();
+        if (layout == DataLayout.FLAT) return parent;
+
+        final File grandparent = parent.getParentFile();
+        if (grandparent == null || !shard(parent.getName()) || !shard(grandparent.getName())) return parent;
+
+        final String name = file.getName();
+        return name.startsWith(grandparent.getName() + parent.getName()) ? grandparent.getParentFile() : parent;
+    }
+}
@@ -0,0 +1,167 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.PlayerDataResource;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the player resources of online players resident in memory.
+ * Resources are loaded off the main thread while the player logs in and pinned in the {@link DocumentCache} while they
+ * are online, so gameplay lookups never touch the disk. After a player quits, their resource is flushed and released
+ * once the grace period passes without them rejoining. A preloaded resource is released after a fixed login timeout
+ * if its player never joins, such as when another plugin denies the login.
+ */
+public class PlayerSessions implements Listener {
+    private static final long LOGIN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final Map<UUID, Session> sessions = new ConcurrentHashMap<>();
+    private final DataAPIImpl api;
+    private final DocumentCache cache;
+    private final DocumentWriter writer;
+    private final long graceMillis;
+    private final Logger logger;
+    private final ScheduledExecutorService scheduler;
+
+    public PlayerSessions(final @NotNull DataAPIImpl api, final @NotNull DocumentCache cache, final @NotNull DocumentWriter writer, final @NotNull Duration gracePeriod, final @NotNull Logger logger) {
+        this.api = api;
+        this.cache = cache;
+        this.writer = writer;
+        this.graceMillis = Math.max(gracePeriod.toMillis(), 0);
+        this.logger = logger;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "DataAPI Sessions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Retrieves the resident resource of a player.
+     *
+     * @param uuid The UUID of the player.
+     * @return The resource, or null if the player has no session.
+     */
+    public @Nullable PlayerDataResource resource(final @NotNull UUID uuid) {
+        final Session session = sessions.get(uuid);
+        return session == null ? null : session.resource;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(final @NotNull AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        // Pinned under the map's lock, close(Session) unpins under it too so it can't undo a newer session's pin.
+        final Session session = sessions.compute(event.getUniqueId(), (uuid, current) -> {
+            final Session next = current == null ? new Session(new PlayerDataResourceImpl(api, uuid)) : current;
+            next.cancel();
+            cache.pin(next.resource.file());
+            return next;
+        });
+
+        try {
+            // Already on an async thread, pinned first so the loaded document can't be evicted in between.
+            cache.document(session.resource);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to preload the data of " + event.getName(), e);
+        }
+
+        // Released again if the login never completes, the grace period only starts once the player quits.
+        release(session, LOGIN_TIMEOUT_MILLIS);
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(final @NotNull PlayerJoinEvent event) {
+        final Session session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null) session.cancel();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(final @NotNull PlayerQuitEvent event) {
+        final Session session = sessions.get(event.getPlayer().getUniqueId());
+        if (session != null) release(session, graceMillis);
+    }
+
+    private void release(final @NotNull Session session, final long delayMillis) {
+        if (scheduler.isShutdown()) return;
+
+        synchronized (session) {
+            session.cancel();
+            session.release = scheduler.schedule(() -> close(session), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void close(final @NotNull Session session) {
+        synchronized (session) {
+            if (session.release == null || session.release.isCancelled()) return;
+
+            session.release = null;
+            session.closing = true;
+        }
+
+        final DataDocument document = cache.cached(session.resource.file());
+
+        try {
+            if (document != null) writer.flush(document);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Failed to save the data of " + session.resource.uuid() + ", retrying on the next flush", e);
+        }
+
+        // Unpinned under the map's lock so a rejoin either revives this session or pins its file after the unpin.
+        sessions.compute(session.resource.uuid(), (uuid, current) -> {
+            if (current != session) return current;
+
+            synchronized (session) {
+                if (!session.closing) return current;
+            }
+
+            cache.unpin(session.resource.file());
+            cache.release(session.resource.file());
+            return null;
+        });
+    }
+
+    /**
+     * Stops listening for players and unpins every resident resource, leaving them to regular cache eviction.
+     */
+    public void close() {
+        HandlerList.unregisterAll(this);
+        scheduler.shutdownNow();
+
+        for (final Session session : sessions.values()) cache.unpin(session.resource.file());
+        sessions.clear();
+    }
+
+    private static class Session {
+        private final PlayerDataResourceImpl resource;
+        private ScheduledFuture<?> release;
+        private boolean closing;
+
+        private Session(final @NotNull PlayerDataResourceImpl resource) {
+            this.resource = resource;
+        }
+
+        private synchronized void cancel() {
+            if (release != null) release.cancel(false);
+            release = null;
+            closing = false;
+        }
+    }
+}
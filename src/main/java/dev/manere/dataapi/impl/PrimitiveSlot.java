@@ -0,0 +1,165 @@
+package dev.manere.dataapi.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A primitive value of a {@link DataDocument}, kept next to its configuration so hot values update without boxing.
+ * The bits hold an integral value, or the raw bits of a double. The configuration only receives the boxed value
+ * when the document is read through its configuration or serialized.
+ * Updates of one kind are atomic, mixing integral and floating-point updates of the same slot concurrently isn't.
+ */
+public class PrimitiveSlot {
+    public enum Kind {
+        INT, LONG, DOUBLE, BOOLEAN
+    }
+
+    private final AtomicLong bits = new AtomicLong();
+    private volatile Kind kind;
+    private volatile boolean present;
+    private volatile boolean foreign;
+    private volatile boolean dirty;
+
+    private PrimitiveSlot(final @Nullable Kind kind, final long bits, final boolean foreign) {
+        this.kind = kind;
+        this.present = kind != null;
+        this.foreign = foreign;
+        this.bits.set(bits);
+    }
+
+    private PrimitiveSlot(final @NotNull Kind kind, final long bits) {
+        this(kind, bits, false);
+    }
+
+    /**
+     * Creates a slot holding a configuration value, converted the way Bukkit's typed getters convert it:
+     * only numbers and booleans, strings holding a number read as the default value.
+     *
+     * @param value The configuration value.
+     * @return The slot, absent if the value isn't a number or a boolean.
+     */
+    public static PrimitiveSlot of(final @Nullable Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) return new PrimitiveSlot(Kind.INT, ((Number) value).longValue());
+        if (value instanceof Double || value instanceof Float) return new PrimitiveSlot(Kind.DOUBLE, Double.doubleToRawLongBits(((Number) value).doubleValue()));
+        if (value instanceof Number number) return new PrimitiveSlot(Kind.LONG, number.longValue());
+        if (value instanceof Boolean bool) return new PrimitiveSlot(Kind.BOOLEAN, bool ? 1 : 0);
+
+        // Any other value is kept in the configuration, increments must not replace it.
+        return new PrimitiveSlot(null, 0, value != null);
+    }
+
+    public boolean present() {
+        return present;
+    }
+
+    public long longValue() {
+        final long bits = this.bits.get();
+        return kind == Kind.DOUBLE ? (long) Double.longBitsToDouble(bits) : bits;
+    }
+
+    public double doubleValue() {
+        final long bits = this.bits.get();
+        return kind == Kind.DOUBLE ? Double.longBitsToDouble(bits) : bits;
+    }
+
+    /**
+     * Retrieves the value as a boolean, only booleans convert like {@link org.bukkit.configuration.ConfigurationSection#getBoolean(String)}.
+     *
+     * @param def The value returned if the slot holds no boolean.
+     * @return The value.
+     */
+    public boolean booleanValue(final boolean def) {
+        return present && kind == Kind.BOOLEAN ? bits.get() != 0 : def;
+    }
+
+    public void set(final long value, final Kind kind) {
+        this.kind = kind;
+        this.bits.set(value);
+        this.present = true;
+        this.foreign = false;
+        this.dirty = true;
+    }
+
+    public void set(final double value) {
+        this.kind = Kind.DOUBLE;
+        this.bits.set(Double.doubleToRawLongBits(value));
+        this.present = true;
+        this.foreign = false;
+        this.dirty = true;
+    }
+
+    /**
+     * Adds to the value atomically, an absent value counts as zero.
+     *
+     * @param delta The amount to add.
+     * @return The new value.
+     * @throws IllegalStateException If the slot holds a value that isn't a number, which is left unchanged.
+     */
+    public long add(final long delta) {
+        numeric();
+        if (kind == Kind.DOUBLE) return (long) add((double) delta);
+
+        final long value = bits.addAndGet(delta);
+        if (kind != Kind.LONG && (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)) kind = Kind.LONG;
+        else if (kind == null) kind = Kind.INT;
+
+        present = true;
+        dirty = true;
+        return value;
+    }
+
+    /**
+     * Adds to the value atomically, turning it into a double. An absent value counts as zero.
+     *
+     * @param delta The amount to add.
+     * @return The new value.
+     * @throws IllegalStateException If the slot holds a value that isn't a number, which is left unchanged.
+     */
+    public double add(final double delta) {
+        numeric();
+
+        long current;
+        double value;
+
+        do {
+            current = bits.get();
+            final double previous = kind == Kind.DOUBLE ? Double.longBitsToDouble(current) : current;
+            value = previous + delta;
+        } while (!bits.compareAndSet(current, Double.doubleToRawLongBits(value)));
+
+        kind = Kind.DOUBLE;
+        present = true;
+        dirty = true;
+        return value;
+    }
+
+    private void numeric() {
+        if (foreign || kind == Kind.BOOLEAN) throw new IllegalStateException("Can't add to a value that isn't a number");
+    }
+
+    /**
+     * Clears the changed flag, the boxed value must be stored into the configuration afterward.
+     *
+     * @return True if the value changed since the last call.
+     */
+    public boolean clean() {
+        if (!dirty) return false;
+
+        dirty = false;
+        return true;
+    }
+
+    public @Nullable Object boxed() {
+        if (!present) return null;
+
+        final long bits = this.bits.get();
+        return switch (kind) {
+            case INT -> (int) bits;
+            case LONG -> bits;
+            case DOUBLE -> Double.longBitsToDouble(bits);
+            case BOOLEAN -> bits != 0;
+        };
+    }
+}
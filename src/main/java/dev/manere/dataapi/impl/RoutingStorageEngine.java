@@ -0,0 +1,211 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.DataLayout;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Routes the resources of segmented folders to their {@link SegmentedStorageEngine}, and every other resource
+ * to one file each. Resources of a segmented folder which were never written to its segments are still read
+ * from their files, so existing files keep loading until they are saved again.
+ */
+public class RoutingStorageEngine implements StorageEngine {
+    private static final long COMPACTION_PERIOD = 60;
+
+    private final FileStorageEngine files;
+    private final Set<File> segmented;
+    private final DataLayout layout;
+    private final Logger logger;
+    private final Map<File, SegmentedStorageEngine> engines = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor;
+
+    public RoutingStorageEngine(final @NotNull Directories directories, final @NotNull Set<File> segmented, final @NotNull DataLayout layout, final long mapThreshold, final boolean deltas, final @NotNull Logger logger) {
+        this.files = new FileStorageEngine(directories, mapThreshold, deltas);
+        this.segmented = Set.copyOf(segmented);
+        this.layout = layout;
+        this.logger = logger;
+        this.compactor = segmented.isEmpty() ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "DataAPI Compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (compactor != null) compactor.scheduleWithFixedDelay(this::compact, COMPACTION_PERIOD, COMPACTION_PERIOD, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Retrieves the segmented engine of the folder the given file belongs to, opening it on first use.
+     *
+     * @return The engine, or null if the folder stores one file per resource.
+     */
+    private @Nullable SegmentedStorageEngine engine(final @NotNull File file) {
+        if (segmented.isEmpty()) return null;
+
+        final File folder = PlayerFiles.folder(file, layout);
+        if (!segmented.contains(folder)) return null;
+
+        return open(folder);
+    }
+
+    private @NotNull SegmentedStorageEngine open(final @NotNull File folder) {
+        return engines.computeIfAbsent(folder, key -> {
+            try {
+                return new SegmentedStorageEngine(key, logger);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open the segments of " + key, e);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ByteBuffer read(final @NotNull File file) throws IOException {
+        final SegmentedStorageEngine engine = engine(file);
+        return engine == null || engine.version(file) == 0 ? files.read(file) : engine.read(file);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long version(final @NotNull File file) {
+        final SegmentedStorageEngine engine = engine(file);
+        final long version = engine == null ? 0 : engine.version(file);
+        return version == 0 ? files.version(file) : version;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final @NotNull File file, final byte @NotNull [] content, final boolean force) throws IOException {
+        final SegmentedStorageEngine engine = engine(file);
+
+        if (engine == null) files.write(file, content, force);
+        else engine.write(file, content, force);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean journaled(final @NotNull File file) {
+        return engine(file) == null && files.journaled(file);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable ByteBuffer journal(final @NotNull File file) throws IOException {
+        return engine(file) == null ? files.journal(file) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void append(final @NotNull File file, final int base, final byte @NotNull [] record, final boolean force) throws IOException {
+        files.append(file, base, record, force);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Batch batch(final boolean force) {
+        final Map<StorageEngine, Batch> batches = new LinkedHashMap<>();
+
+        return new Batch() {
+            @Override
+            public void add(final @NotNull File file, final byte @NotNull [] content) throws IOException {
+                final SegmentedStorageEngine engine = engine(file);
+                final StorageEngine target = engine == null ? files : engine;
+
+                batches.computeIfAbsent(target, key -> key.batch(force)).add(file, content);
+            }
+
+            @Override
+            public void commit() throws IOException {
+                IOException failure = null;
+
+                for (final Batch batch : batches.values()) {
+                    try {
+                        batch.commit();
+                    } catch (IOException e) {
+                        if (failure == null) failure = e;
+                        else failure.addSuppressed(e);
+                    }
+                }
+
+                if (failure != null) throw failure;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @Nullable Collection<String> names(final @NotNull File folder) {
+        if (!segmented.contains(folder)) return null;
+
+        final SegmentedStorageEngine engine = open(folder);
+
+        // Files not yet moved into the segments are still resources of the folder.
+        final Set<String> names = new LinkedHashSet<>(engine.names(folder));
+        final File[] legacy = folder.listFiles(File::isFile);
+        if (legacy != null) for (final File file : legacy) names.add(file.getName());
+
+        return names;
+    }
+
+    /**
+     * Compacts the segments of every opened segmented folder.
+     */
+    public void compact() {
+        for (final SegmentedStorageEngine engine : engines.values()) {
+            try {
+                engine.compact();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Failed to compact data segments", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            compactor.shutdown();
+
+            try {
+                compactor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (final SegmentedStorageEngine engine : engines.values()) engine.close();
+        engines.clear();
+    }
+}
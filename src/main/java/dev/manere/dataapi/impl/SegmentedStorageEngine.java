@@ -0,0 +1,357 @@
+package dev.manere.dataapi.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Stores every resource of one folder in append-only segment files instead of one file per resource.
+ * Each write appends a record to the active segment and points an in-memory index at it, reads are served from
+ * memory-mapped segments. Segments whose records are mostly overwritten are compacted in the background by
+ * copying their live records to the active segment and deleting them.
+ * <p>
+ * A record is laid out as {@code magic, key length, value length, version, key, value, crc32}.
+ * On open, every segment is replayed to rebuild the index, and a torn record at the end of the last segment,
+ * left by a crash during an append, is truncated.
+ */
+public class SegmentedStorageEngine implements StorageEngine {
+    private static final int MAGIC = 0x44415352;
+    private static final int HEADER = 20;
+    private static final int TRAILER = 4;
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final double COMPACTION_RATIO = 0.5;
+
+    private final Path directory;
+    private final Logger logger;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private Segment active;
+
+    public SegmentedStorageEngine(final @NotNull File folder, final @NotNull Logger logger) throws IOException {
+        this.directory = folder.toPath().resolve(".segments");
+        this.logger = logger;
+
+        Files.createDirectories(directory);
+
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.log")) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                final int id = Integer.parseInt(name.substring(8, name.length() - 4));
+                segments.put(id, new Segment(id, file));
+            }
+        }
+
+        for (final Segment segment : segments.values()) replay(segment, segment == segments.lastEntry().getValue());
+
+        active = segments.isEmpty() ? roll() : segments.lastEntry().getValue();
+    }
+
+    private record Location(@NotNull Segment segment, long record, int length, long version, int size) {
+        private long value(final int keyLength) {
+            return record + HEADER + keyLength;
+        }
+    }
+
+    private static class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicLong live = new AtomicLong();
+        private volatile long size;
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(final int id, final @NotNull Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        /**
+         * Retrieves a view of a region of the segment, remapping it if it grew past the current mapping.
+         */
+        private @NotNull ByteBuffer view(final long position, final int length) throws IOException {
+            MappedByteBuffer mapped = this.mapped;
+
+            if (mapped == null || mapped.capacity() < position + length) {
+                synchronized (this) {
+                    mapped = this.mapped;
+                    if (mapped == null || mapped.capacity() < position + length) {
+                        this.mapped = mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    }
+                }
+            }
+
+            return mapped.slice((int) position, length);
+        }
+    }
+
+    private void replay(final @NotNull Segment segment, final boolean last) throws IOException {
+        final long size = segment.channel.size();
+        if (size == 0) return;
+
+        final ByteBuffer in = segment.view(0, (int) size);
+        long position = 0;
+
+        while (position < size) {
+            final int remaining = (int) (size - position);
+            if (remaining < HEADER + TRAILER || in.getInt((int) position) != MAGIC) break;
+
+            final int keyLength = in.getInt((int) position + 4);
+            final int valueLength = in.getInt((int) position + 8);
+            final long version = in.getLong((int) position + 12);
+            final int recordSize = HEADER + keyLength + valueLength + TRAILER;
+            if (keyLength < 0 || valueLength < 0 || recordSize > remaining) break;
+
+            final CRC32 crc = new CRC32();
+            crc.update(in.slice((int) position, HEADER + keyLength + valueLength));
+            if ((int) crc.getValue() != in.getInt((int) position + recordSize - TRAILER)) break;
+
+            final byte[] key = new byte[keyLength];
+            in.get((int) position + HEADER, key);
+
+            publish(new String(key, StandardCharsets.UTF_8), new Location(segment, position, valueLength, version, recordSize));
+            versions.accumulateAndGet(version, Math::max);
+            position += recordSize;
+        }
+
+        if (position < size) {
+            if (!last) throw new IOException("Corrupt record in " + segment.path + " at offset " + position);
+
+            logger.warning("Truncating a torn record at the end of " + segment.path + ", offset " + position);
+            segment.channel.truncate(position);
+            segment.mapped = null;
+        }
+
+        segment.size = position;
+    }
+
+    /**
+     * Points the index at a new location unless it already holds a newer version, accounting live bytes.
+     */
+    private void publish(final @NotNull String key, final @NotNull Location location) {
+        index.compute(key, (ignored, current) -> {
+            if (current != null && current.version() > location.version()) return current;
+
+            if (current != null) current.segment().live.addAndGet(-current.size());
+            location.segment().live.addAndGet(location.size());
+            return location;
+        });
+    }
+
+    private @NotNull Segment roll() throws IOException {
+        final int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        final Segment segment = new Segment(id, directory.resolve(String.format("segment-%06d.log", id)));
+
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private static @NotNull String key(final @NotNull File file) {
+        return file.getName();
+    }
+
+    /**
+     * A record waiting to be appended, a version of zero is assigned the next version when it's appended.
+     */
+    private record Pending(@NotNull String key, byte @NotNull [] content, long version) {}
+
+    /**
+     * Appends records to the active segment, rolling over to a new segment once it's full.
+     * Versions are assigned under the same lock, so a later append always carries a higher version.
+     */
+    private synchronized @NotNull List<Location> append(final @NotNull List<Pending> records, final boolean force) throws IOException {
+        final List<Location> locations = new ArrayList<>(records.size());
+        final List<Segment> touched = new ArrayList<>(1);
+
+        for (final Pending pending : records) {
+            if (active.size >= SEGMENT_SIZE) {
+                if (force) active.channel.force(false);
+                active = roll();
+            }
+
+            final long version = pending.version() == 0 ? versions.incrementAndGet() : pending.version();
+            final byte[] key = pending.key().getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer record = ByteBuffer.allocate(HEADER + key.length + pending.content().length + TRAILER);
+            record.putInt(MAGIC).putInt(key.length).putInt(pending.content().length).putLong(version).put(key).put(pending.content());
+
+            final CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, record.position());
+            record.putInt((int) crc.getValue()).flip();
+
+            final long position = active.size;
+            while (record.hasRemaining()) active.channel.write(record, position + record.position());
+
+            active.size = position + record.capacity();
+            locations.add(new Location(active, position, pending.content().length, version, record.capacity()));
+            if (!touched.contains(active)) touched.add(active);
+        }
+
+        if (force) {
+            for (final Segment segment : touched) segment.channel.force(false);
+        }
+
+        return locations;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull ByteBuffer read(final @NotNull File file) throws IOException {
+        final String key = key(file);
+        final Location location = index.get(key);
+        if (location == null) return ByteBuffer.allocate(0);
+
+        return location.segment().view(location.value(key.getBytes(StandardCharsets.UTF_8).length), location.length());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long version(final @NotNull File file) {
+        final Location location = index.get(key(file));
+        return location == null ? 0 : location.version();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final @NotNull File file, final byte @NotNull [] content, final boolean force) throws IOException {
+        final Pending pending = new Pending(key(file), content, 0);
+        publish(pending.key(), append(List.of(pending), force).get(0));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Batch batch(final boolean force) {
+        final List<Pending> records = new ArrayList<>();
+
+        return new Batch() {
+            @Override
+            public void add(final @NotNull File file, final byte @NotNull [] content) {
+                records.add(new Pending(key(file), content, 0));
+            }
+
+            @Override
+            public void commit() throws IOException {
+                if (records.isEmpty()) return;
+
+                // One sequential append and one force for the whole group.
+                final List<Location> locations = append(records, force);
+                for (int i = 0; i < records.size(); i++) publish(records.get(i).key(), locations.get(i));
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Collection<String> names(final @NotNull File folder) {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Rewrites the live records of sealed segments that are mostly garbage, then deletes those segments.
+     *
+     * @return The amount of deleted segments.
+     */
+    public int compact() {
+        int compacted = 0;
+
+        for (final Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == active || segment.live.get() > segment.size * COMPACTION_RATIO) continue;
+
+            try {
+                compact(segment);
+                compacted++;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to compact " + segment.path, e);
+            }
+        }
+
+        return compacted;
+    }
+
+    private void compact(final @NotNull Segment segment) throws IOException {
+        final List<String> keys = new ArrayList<>();
+        final List<Location> sources = new ArrayList<>();
+        final List<Pending> copies = new ArrayList<>();
+
+        for (final Map.Entry<String, Location> entry : index.entrySet()) {
+            final Location location = entry.getValue();
+            if (location.segment() != segment) continue;
+
+            final ByteBuffer view = read(new File(entry.getKey()));
+            final byte[] content = new byte[view.remaining()];
+            view.get(content);
+
+            keys.add(entry.getKey());
+            sources.add(location);
+            copies.add(new Pending(entry.getKey(), content, location.version()));
+        }
+
+        // Copies keep their version, and are forced before the segment holding the originals is deleted.
+        final List<Location> locations = append(copies, true);
+
+        for (int i = 0; i < keys.size(); i++) {
+            final Location source = sources.get(i);
+            final Location copy = locations.get(i);
+
+            final boolean moved = index.replace(keys.get(i), source, copy);
+            if (moved) {
+                source.segment().live.addAndGet(-source.size());
+                copy.segment().live.addAndGet(copy.size());
+            }
+        }
+
+        if (segment.live.get() > 0) return;
+
+        // Map the whole segment before closing it, readers that looked up an old location keep working.
+        segment.view(0, (int) segment.size);
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() {
+        for (final Segment segment : segments.values()) {
+            try {
+                segment.channel.force(false);
+                segment.channel.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close " + segment.path, e);
+            }
+        }
+    }
+}
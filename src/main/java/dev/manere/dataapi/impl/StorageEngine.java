@@ -0,0 +1,110 @@
+package dev.manere.dataapi.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * Stores the encoded content of resources, identified by their resolved file.
+ * The document cache and writer only go through this interface, so resources can live in something other than
+ * one file each.
+ */
+public interface StorageEngine {
+    /**
+     * Reads the content of a resource.
+     *
+     * @param file The resolved file of the resource.
+     * @return The content, empty if the resource was never written.
+     * @throws IOException If reading fails.
+     */
+    @NotNull ByteBuffer read(final @NotNull File file) throws IOException;
+
+    /**
+     * Retrieves a stamp that changes whenever the content of a resource changes.
+     *
+     * @param file The resolved file of the resource.
+     * @return The version stamp.
+     */
+    long version(final @NotNull File file);
+
+    /**
+     * Replaces the content of a resource atomically.
+     *
+     * @param file    The resolved file of the resource.
+     * @param content The new content.
+     * @param force   Whether to force the content to the storage device.
+     * @throws IOException If writing fails, the previous content is left untouched.
+     */
+    void write(final @NotNull File file, final byte @NotNull [] content, final boolean force) throws IOException;
+
+    /**
+     * Starts a group of writes committed together.
+     *
+     * @param force Whether to force the group to the storage device.
+     * @return The batch.
+     */
+    @NotNull Batch batch(final boolean force);
+
+    /**
+     * Checks whether the engine keeps a delta journal for the given resource, see {@link #append(File, int, byte[], boolean)}.
+     *
+     * @param file The resolved file of the resource.
+     * @return True if saves of the resource may append deltas instead of replacing its content.
+     */
+    default boolean journaled(final @NotNull File file) {
+        return false;
+    }
+
+    /**
+     * Reads the delta journal of a resource, see {@link DeltaJournal}.
+     *
+     * @param file The resolved file of the resource.
+     * @return The journal, or null if the resource has none.
+     * @throws IOException If reading fails.
+     */
+    default @Nullable ByteBuffer journal(final @NotNull File file) throws IOException {
+        return null;
+    }
+
+    /**
+     * Appends a delta record to the journal of a resource instead of replacing its content.
+     * Replacing the content discards the journal.
+     *
+     * @param file   The resolved file of the resource.
+     * @param base   The checksum of the stored content the record applies to.
+     * @param record The encoded record.
+     * @param force  Whether to force the record to the storage device.
+     * @throws IOException If appending fails.
+     */
+    default void append(final @NotNull File file, final int base, final byte @NotNull [] record, final boolean force) throws IOException {
+        throw new UnsupportedOperationException("Resources of this engine have no journal");
+    }
+
+    /**
+     * Retrieves the file names of the resources stored in a folder, for engines which don't keep them as files.
+     *
+     * @param folder The folder.
+     * @return The file names, or null if the folder should be listed instead.
+     */
+    default @Nullable Collection<String> names(final @NotNull File folder) {
+        return null;
+    }
+
+    /**
+     * Releases every resource held by the engine.
+     */
+    default void close() {}
+
+    /**
+     * A group of writes, published on {@link #commit()}.
+     */
+    interface Batch {
+        void add(final @NotNull File file, final byte @NotNull [] content) throws IOException;
+
+        void commit() throws IOException;
+    }
+}
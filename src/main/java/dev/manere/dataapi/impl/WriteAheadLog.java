@@ -0,0 +1,346 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.util.AtomicFiles;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Logs every stored value of a DataAPI instance, so stores are durable long before their resources are saved.
+ * Appends only encode the record into a buffer, a syncer thread writes and fsyncs the buffered records of every
+ * caller together each sync interval. Records are {@code (resource, path, value)}, with the value encoded by the
+ * {@link BinaryCodec}, framed by their length and a CRC in numbered segment files.
+ * <p>
+ * Each {@link DocumentWriter#flushAll()} checkpoints the log: it seals the current segment before saving every dirty
+ * resource, and deletes the sealed segments once all of them are saved. Segments left over by a crash are replayed
+ * when the instance registers.
+ */
+public class WriteAheadLog {
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int RECORD_HEADER = 8;
+
+    private final File folder;
+    private final Path dataFolder;
+    private final Logger logger;
+    private final ScheduledExecutorService syncer;
+    private final Object io = new Object();
+    private BinaryCodec.Encoder pending = new BinaryCodec.Encoder(false);
+    private long segment;
+    private FileChannel channel;
+
+    /**
+     * Replays one logged record.
+     */
+    @FunctionalInterface
+    public interface Replay {
+        /**
+         * Applies a logged value.
+         *
+         * @param file  The resolved file of the resource.
+         * @param path  The stored path.
+         * @param value The decoder positioned at the value, see {@link BinaryCodec.Decoder#into}.
+         * @throws IOException If the value is malformed.
+         */
+        void apply(final @NotNull File file, final @NotNull String path, final @NotNull BinaryCodec.Decoder value) throws IOException;
+    }
+
+    public WriteAheadLog(final @NotNull File folder, final @NotNull File dataFolder, final @NotNull Duration syncInterval, final @NotNull Logger logger) throws IOException {
+        this.folder = folder;
+        this.dataFolder = dataFolder.toPath();
+        this.logger = logger;
+
+        Files.createDirectories(folder.toPath());
+
+        final List<Long> segments = segments();
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        this.channel = open(segment);
+
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "DataAPI WAL");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final long period = Math.max(syncInterval.toNanos(), 1);
+        syncer.scheduleWithFixedDelay(this::syncQuietly, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Replays the segments left over by the previous run, in log order.
+     *
+     * @param replay The replay of each record.
+     * @return The amount of replayed records.
+     * @throws IOException If a record can't be applied.
+     */
+    public int replay(final @NotNull Replay replay) throws IOException {
+        int replayed = 0;
+
+        for (final long id : segments()) {
+            if (id >= segment) break;
+
+            final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file(id).toPath()));
+            while (content.remaining() >= RECORD_HEADER) {
+                final int length = content.getInt(content.position());
+                final int crc = content.getInt(content.position() + 4);
+                if (length < 0 || length > content.remaining() - RECORD_HEADER) break;
+
+                final ByteBuffer record = content.slice(content.position() + RECORD_HEADER, length);
+                if (checksum(record) != crc) break;
+
+                final BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(record, null);
+                final File file = dataFolder.resolve(decoder.string()).toFile();
+                replay.apply(file, decoder.string(), decoder);
+
+                content.position(content.position() + RECORD_HEADER + length);
+                replayed++;
+            }
+
+            // The tail of the last segment written before a crash may be torn, everything before it is intact.
+            if (content.hasRemaining()) logger.warning("Ignoring " + content.remaining() + " torn bytes at the end of " + file(id));
+        }
+
+        return replayed;
+    }
+
+    /**
+     * Encodes a value to log, before it is stored, so a value the log can't hold fails the store
+     * instead of being stored without being logged.
+     *
+     * @param value The value.
+     * @return The encoded value, see {@link #append(File, String, byte[])}.
+     * @throws IllegalArgumentException If the log can't hold the type of the value.
+     */
+    public static byte @NotNull [] encode(final @Nullable Object value) {
+        final BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(false);
+
+        try {
+            encoder.value(value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The write-ahead log can't hold this value: " + e.getMessage(), e);
+        }
+
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Logs an encoded value of a path, durable after the next sync.
+     * Must be called holding the write lock of the document, so appends of the same path are logged in store order.
+     *
+     * @param file  The resolved file of the resource.
+     * @param path  The stored path.
+     * @param value The value, see {@link #encode(Object)}.
+     */
+    public void append(final @NotNull File file, final @NotNull String path, final byte @NotNull [] value) {
+        final BinaryCodec.Encoder record = record(file, path);
+        record.write(value);
+
+        synchronized (this) {
+            frame(record.toByteArray());
+        }
+    }
+
+    /**
+     * Logs the value of a primitive slot, durable after the next sync. The value is read while holding the log,
+     * so of two appends of the same slot the later one always logs the later value.
+     * Must be called holding the read lock of the document, so stores to the configuration can't interleave.
+     *
+     * @param file  The resolved file of the resource.
+     * @param path  The stored path.
+     * @param value The current value of the slot, always a primitive the log can hold.
+     */
+    public void append(final @NotNull File file, final @NotNull String path, final @NotNull Supplier<@Nullable Object> value) {
+        final BinaryCodec.Encoder record = record(file, path);
+
+        synchronized (this) {
+            try {
+                record.value(value.get());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to log " + path + " of " + file, e);
+            }
+
+            frame(record.toByteArray());
+        }
+    }
+
+    private @NotNull BinaryCodec.Encoder record(final @NotNull File file, final @NotNull String path) {
+        final BinaryCodec.Encoder record = new BinaryCodec.Encoder(false);
+        record.string(dataFolder.relativize(file.toPath()).toString());
+        record.string(path);
+        return record;
+    }
+
+    /**
+     * Buffers a record with its length and checksum, must be called while holding this.
+     */
+    private void frame(final byte @NotNull [] record) {
+        pending.writeInt(record.length);
+        pending.writeInt(checksum(ByteBuffer.wrap(record)));
+        pending.write(record);
+    }
+
+    /**
+     * Writes and fsyncs every buffered record.
+     *
+     * @throws IOException If writing fails, the records stay buffered.
+     */
+    public void sync() throws IOException {
+        synchronized (io) {
+            write();
+        }
+    }
+
+    /**
+     * Seals the current segment, every record logged so far is then covered by the next checkpoint.
+     *
+     * @return The last sealed segment, to pass to {@link #checkpoint(long)} once every dirty resource is saved.
+     */
+    public long rotate() {
+        synchronized (io) {
+            try {
+                write();
+
+                // Nothing was logged since the last rotation, the empty segment stays in use.
+                if (channel.size() == 0) return segment - 1;
+
+                final FileChannel next = open(segment + 1);
+                channel.close();
+                channel = next;
+                segment++;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to seal write-ahead log segment " + segment, e);
+                return 0;
+            }
+
+            return segment - 1;
+        }
+    }
+
+    /**
+     * Deletes the segments whose records are all saved to their resources.
+     *
+     * @param sealed The last segment sealed before the resources were saved, see {@link #rotate()}.
+     */
+    public void checkpoint(final long sealed) {
+        for (final long id : segments()) {
+            if (id > sealed) break;
+
+            try {
+                Files.deleteIfExists(file(id).toPath());
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to delete write-ahead log segment " + id, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the syncer and writes every buffered record. Segments are kept until the next checkpoint.
+     */
+    public void close() {
+        syncer.shutdown();
+
+        try {
+            syncer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (io) {
+            try {
+                write();
+
+                final boolean empty = channel.size() == 0;
+                channel.close();
+                if (empty) Files.deleteIfExists(file(segment).toPath());
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to close the write-ahead log", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered records to the current segment, must be called while holding the I/O lock.
+     */
+    private void write() throws IOException {
+        final BinaryCodec.Encoder batch;
+
+        synchronized (this) {
+            if (pending.size() == 0) return;
+
+            batch = pending;
+            pending = new BinaryCodec.Encoder(false);
+        }
+
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            // Kept in front of the newer records. A partly written batch is logged twice, replaying it again is harmless.
+            synchronized (this) {
+                batch.write(pending.toByteArray());
+                pending = batch;
+            }
+
+            throw e;
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to sync the write-ahead log, retrying on the next sync", e);
+        }
+    }
+
+    private @NotNull FileChannel open(final long id) throws IOException {
+        final FileChannel opened = FileChannel.open(file(id).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        AtomicFiles.syncDirectory(folder.toPath());
+        return opened;
+    }
+
+    private @NotNull File file(final long id) {
+        return new File(folder, PREFIX + String.format("%06d", id) + SUFFIX);
+    }
+
+    private @NotNull List<Long> segments() {
+        final List<Long> segments = new ArrayList<>();
+        final String[] names = folder.list();
+        if (names == null) return segments;
+
+        for (final String name : names) {
+            if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) continue;
+
+            try {
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            } catch (NumberFormatException ignored) {}
+        }
+
+        segments.sort(null);
+        return segments;
+    }
+
+    private static int checksum(final @NotNull ByteBuffer content) {
+        final CRC32 crc = new CRC32();
+        crc.update(content.duplicate());
+        return (int) crc.getValue();
+    }
+}
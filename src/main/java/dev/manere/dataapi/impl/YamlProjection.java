@@ -0,0 +1,229 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.util.NodePath;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.file.YamlConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads selected paths of a YAML resource from the parser's event stream.
+ * Nodes are only built for the requested subtrees, everything else is skipped event by event,
+ * and parsing stops as soon as the last requested subtree ends.
+ * Values are constructed by Bukkit's {@link YamlConstructor}, so they match what a full load returns.
+ */
+public class YamlProjection {
+    private final Iterator<Event> events;
+    private final Map<String, NodePath> wanted;
+    private final Map<NodePath, Object> values = new LinkedHashMap<>();
+    private final Map<String, Node> anchors = new HashMap<>();
+    private final Resolver resolver = new Resolver();
+    private final YamlConstructor constructor;
+    private final MemoryConfiguration scratch = new MemoryConfiguration();
+
+    private YamlProjection(final @NotNull Reader reader, final @NotNull Set<NodePath> paths) {
+        final LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE);
+
+        this.events = new Yaml(options).parse(reader).iterator();
+        this.constructor = new YamlConstructor(options);
+        this.wanted = new HashMap<>();
+        for (final NodePath path : paths) wanted.put(path.key(), path);
+    }
+
+    /**
+     * Reads the values at the given paths.
+     *
+     * @param content The YAML content.
+     * @param paths   The paths to read.
+     * @return The values by path, or null if the requested subtrees reference anchors outside of them.
+     * @throws IOException If the content is malformed.
+     */
+    public static @Nullable Map<NodePath, Object> project(final @NotNull ByteBuffer content, final @NotNull Set<NodePath> paths) throws IOException {
+        if (!content.hasRemaining() || paths.isEmpty()) return new LinkedHashMap<>();
+
+        final InputStream in = content.hasArray()
+                ? new ByteArrayInputStream(content.array(), content.arrayOffset() + content.position(), content.remaining())
+                : new ByteBufferInputStream(content);
+
+        final YamlProjection projection = new YamlProjection(new InputStreamReader(in, StandardCharsets.UTF_8), paths);
+
+        try {
+            return projection.document() ? projection.values : null;
+        } catch (YAMLException | ClassCastException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private boolean document() throws IOException {
+        while (events.hasNext()) {
+            final Event event = events.next();
+
+            if (event.is(Event.ID.MappingStart)) return mapping("");
+            if (event.is(Event.ID.StreamStart) || event.is(Event.ID.DocumentStart)) continue;
+            if (event.is(Event.ID.DocumentEnd) || event.is(Event.ID.StreamEnd)) return true;
+
+            throw new IOException("Top level is not a Map.");
+        }
+
+        return true;
+    }
+
+    /**
+     * Walks the entries of a mapping whose start event was consumed.
+     *
+     * @return False if a requested subtree can't be built from its own events.
+     */
+    private boolean mapping(final @NotNull String prefix) {
+        while (true) {
+            final Event key = events.next();
+            if (key.is(Event.ID.MappingEnd)) return true;
+
+            if (!(key instanceof ScalarEvent scalar)) {
+                // Complex keys can't be addressed by a path.
+                skip(key);
+                skip(events.next());
+                continue;
+            }
+
+            final String path = prefix + scalar.getValue();
+            final NodePath wantedPath = wanted.get(path);
+            final Event value = events.next();
+
+            if (wantedPath != null) {
+                final Node node = node(value);
+                if (node == null) return false;
+
+                final Object constructed = construct(path, node);
+                values.put(wantedPath, constructed);
+                if (constructed instanceof ConfigurationSection section) nested(path, section);
+                if (values.size() == wanted.size()) return true;
+            } else if (value.is(Event.ID.MappingStart) && descends(path)) {
+                if (!mapping(path + ".")) return false;
+                if (values.size() == wanted.size()) return true;
+            } else {
+                skip(value);
+            }
+        }
+    }
+
+    /**
+     * Resolves requested paths inside an already built section, the walk won't descend into it again.
+     */
+    private void nested(final @NotNull String path, final @NotNull ConfigurationSection section) {
+        for (final Map.Entry<String, NodePath> entry : wanted.entrySet()) {
+            final String key = entry.getKey();
+            if (key.length() <= path.length() || !key.startsWith(path) || key.charAt(path.length()) != '.') continue;
+
+            final Object value = section.get(key.substring(path.length() + 1));
+            if (value != null) values.put(entry.getValue(), value);
+        }
+    }
+
+    private boolean descends(final @NotNull String key) {
+        for (final String path : wanted.keySet()) {
+            if (path.length() > key.length() && path.startsWith(key) && path.charAt(key.length()) == '.') return true;
+        }
+
+        return false;
+    }
+
+    private void skip(final @NotNull Event event) {
+        if (!(event instanceof CollectionStartEvent)) return;
+
+        int depth = 1;
+        while (depth > 0) {
+            final Event next = events.next();
+
+            if (next instanceof CollectionStartEvent) depth++;
+            else if (next.is(Event.ID.MappingEnd) || next.is(Event.ID.SequenceEnd)) depth--;
+        }
+    }
+
+    /**
+     * Builds the node tree of a subtree from its events.
+     *
+     * @return The node, or null if it references an anchor defined outside of the requested subtrees.
+     */
+    private @Nullable Node node(final @NotNull Event event) {
+        if (event instanceof AliasEvent alias) return anchors.get(alias.getAnchor());
+
+        final Node node;
+
+        if (event instanceof ScalarEvent scalar) {
+            final Tag tag = scalar.getTag() == null || scalar.getTag().equals("!")
+                    ? resolver.resolve(NodeId.scalar, scalar.getValue(), scalar.getImplicit().canOmitTagInPlainScalar())
+                    : new Tag(scalar.getTag());
+
+            node = new ScalarNode(tag, scalar.getValue(), scalar.getStartMark(), scalar.getEndMark(), scalar.getScalarStyle());
+        } else if (event.is(Event.ID.SequenceStart)) {
+            final CollectionStartEvent start = (CollectionStartEvent) event;
+            final List<Node> children = new ArrayList<>();
+
+            for (Event next = events.next(); !next.is(Event.ID.SequenceEnd); next = events.next()) {
+                final Node child = node(next);
+                if (child == null) return null;
+                children.add(child);
+            }
+
+            node = new SequenceNode(start.getTag() == null ? Tag.SEQ : new Tag(start.getTag()), children, start.getFlowStyle());
+        } else if (event.is(Event.ID.MappingStart)) {
+            final CollectionStartEvent start = (CollectionStartEvent) event;
+            final List<NodeTuple> children = new ArrayList<>();
+
+            for (Event next = events.next(); !next.is(Event.ID.MappingEnd); next = events.next()) {
+                final Node key = node(next);
+                final Node value = key == null ? null : node(events.next());
+                if (value == null) return null;
+                children.add(new NodeTuple(key, value));
+            }
+
+            node = new MappingNode(start.getTag() == null ? Tag.MAP : new Tag(start.getTag()), children, start.getFlowStyle());
+        } else {
+            throw new YAMLException("Unexpected " + event);
+        }
+
+        if (event instanceof NodeEvent anchored && anchored.getAnchor() != null) anchors.put(anchored.getAnchor(), node);
+        return node;
+    }
+
+    private @Nullable Object construct(final @NotNull String path, final @NotNull Node node) {
+        final Object value = constructor.construct(node);
+
+        // Plain mappings load as sections, like a full load does.
+        if (value instanceof Map<?, ?> map) return scratch.createSection(path, map);
+        return value;
+    }
+}
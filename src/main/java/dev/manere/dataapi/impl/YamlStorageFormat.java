@@ -0,0 +1,66 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.api.StorageFormat;
+import dev.manere.dataapi.util.NodePath;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+public class YamlStorageFormat implements StorageFormat {
+    public static final YamlStorageFormat INSTANCE = new YamlStorageFormat();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull String extension() {
+        return "yml";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull FileConfiguration read(final @NotNull ByteBuffer content) throws IOException {
+        final YamlConfiguration configuration = new YamlConfiguration();
+        if (!content.hasRemaining()) return configuration;
+
+        try {
+            final String text = StandardCharsets.UTF_8.decode(content).toString();
+
+            // Large documents only parse their collections once they're touched.
+            final LazyConfiguration lazy = YamlSubtrees.load(text);
+            if (lazy != null) return lazy;
+
+            configuration.loadFromString(text);
+        } catch (InvalidConfigurationException e) {
+            throw new IOException(e);
+        }
+
+        return configuration;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull Map<NodePath, Object> project(final @NotNull ByteBuffer content, final @NotNull Set<NodePath> paths) throws IOException {
+        final Map<NodePath, Object> values = YamlProjection.project(content.duplicate(), paths);
+        return values == null ? StorageFormat.super.project(content, paths) : values;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte @NotNull [] write(final @NotNull FileConfiguration configuration) {
+        return configuration.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+}
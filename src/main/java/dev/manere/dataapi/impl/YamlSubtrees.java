@@ -0,0 +1,257 @@
+package dev.manere.dataapi.impl;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loads a YAML resource as a {@link LazyConfiguration}.
+ * The event stream is walked once to find the lines of the top-level entries, without building nodes.
+ * A skeleton holding every comment, every scalar entry and a placeholder for every collection entry is loaded
+ * right away, each collection is parsed from its own lines when first touched.
+ * <p>
+ * Documents this can't split safely, such as ones using anchors, block scalars or flow-style roots,
+ * are left to a regular load.
+ */
+public class YamlSubtrees {
+    private static final String PLACEHOLDER = "\"\\0\"";
+
+    private final String text;
+    private final int[] lines;
+
+    private YamlSubtrees(final @NotNull String text) {
+        this.text = text;
+        this.lines = lines(text);
+    }
+
+    /**
+     * A top-level entry, by the line of its key and the offset just past the key.
+     */
+    private record Entry(int line, int keyEnd, boolean deferred) {}
+
+    /**
+     * Loads the given content lazily.
+     *
+     * @param text The YAML content.
+     * @return The configuration, or null if the content should be loaded eagerly.
+     * @throws InvalidConfigurationException If the skeleton is malformed.
+     */
+    public static @Nullable LazyConfiguration load(final @NotNull String text) throws InvalidConfigurationException {
+        if (text.length() < LazyConfiguration.THRESHOLD || !splittable(text)) return null;
+        return new YamlSubtrees(text).load();
+    }
+
+    /**
+     * Rejects content whose line breaks or chomping would make line-based slicing differ from the parser.
+     */
+    private static boolean splittable(final @NotNull String text) {
+        if (text.charAt(0) == '\uFEFF' || text.contains("|+") || text.contains(">+")) return false;
+
+        for (int i = 0; i < text.length(); i++) {
+            final char character = text.charAt(i);
+            if (character == '\u0085' || character == '\u2028' || character == '\u2029') return false;
+            if (character == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n')) return false;
+        }
+
+        return true;
+    }
+
+    private static int @NotNull [] lines(final @NotNull String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) if (text.charAt(i) == '\n') count++;
+
+        final int[] lines = new int[count];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) if (text.charAt(i) == '\n') lines[line++] = i + 1;
+
+        return lines;
+    }
+
+    private @Nullable LazyConfiguration load() throws InvalidConfigurationException {
+        final List<Entry> entries = entries();
+        if (entries == null || entries.stream().noneMatch(Entry::deferred)) return null;
+
+        final int[] starts = new int[entries.size() + 1];
+        for (int i = 0; i < entries.size(); i++) {
+            starts[i] = i == 0 ? 0 : comments(entries.get(i).line(), entries.get(i - 1).line() + 1);
+        }
+        starts[entries.size()] = comments(lines.length, entries.get(entries.size() - 1).line() + 1);
+
+        // The skeleton keeps every line outside of deferred values, so header, footer and comments load as usual.
+        final StringBuilder skeleton = new StringBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+
+            if (entry.deferred()) skeleton.append(text, offset(starts[i]), entry.keyEnd()).append(": ").append(PLACEHOLDER).append('\n');
+            else skeleton.append(text, offset(starts[i]), offset(starts[i + 1]));
+        }
+        skeleton.append(text, offset(starts[entries.size()]), text.length());
+
+        final LazyConfiguration configuration = new LazyConfiguration();
+        configuration.loadFromString(skeleton.toString());
+
+        final List<String> keys = new ArrayList<>();
+        for (final String key : configuration.getKeys(false)) {
+            if (LazyConfiguration.PLACEHOLDER.equals(configuration.get(key))) keys.add(key);
+        }
+
+        final List<Integer> deferred = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) if (entries.get(i).deferred()) deferred.add(i);
+        if (keys.size() != deferred.size()) return null;
+
+        for (int i = 0; i < keys.size(); i++) {
+            final int index = deferred.get(i);
+            configuration.defer(keys.get(i), subtree(offset(entries.get(index).line()), offset(starts[index + 1])));
+        }
+
+        return configuration;
+    }
+
+    /**
+     * Walks the top-level mapping of the document.
+     *
+     * @return The entries, or null if the document can't be split.
+     */
+    private @Nullable List<Entry> entries() {
+        final LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE);
+
+        final Iterator<Event> events = new Yaml(options).parse(new StringReader(text)).iterator();
+        final List<Entry> entries = new ArrayList<>();
+
+        try {
+            Event event = events.next();
+            while (event.is(Event.ID.StreamStart) || event.is(Event.ID.DocumentStart)) event = events.next();
+            if (!(event instanceof CollectionStartEvent root) || !event.is(Event.ID.MappingStart) || root.isFlow() || root.getAnchor() != null) return null;
+
+            for (Event key = events.next(); !key.is(Event.ID.MappingEnd); key = events.next()) {
+                // Keys on their own line at the first column, addressable by a path.
+                if (!(key instanceof ScalarEvent scalar) || scalar.getAnchor() != null) return null;
+                if (scalar.getStartMark().getColumn() != 0 || scalar.getStartMark().getLine() != scalar.getEndMark().getLine()) return null;
+                if (scalar.getValue().indexOf('.') >= 0) return null;
+
+                final Event value = events.next();
+                if (!plain(value, events)) return null;
+
+                final int line = scalar.getStartMark().getLine();
+                final int keyEnd = text.offsetByCodePoints(lines[line], scalar.getEndMark().getColumn());
+                entries.add(new Entry(line, keyEnd, value instanceof CollectionStartEvent));
+            }
+
+            while (events.hasNext()) {
+                if (events.next().is(Event.ID.DocumentStart)) return null;
+            }
+        } catch (YAMLException e) {
+            // Malformed content fails the regular load with a proper error.
+            return null;
+        }
+
+        return entries.isEmpty() ? null : entries;
+    }
+
+    /**
+     * Consumes a value, checking that it can be parsed on its own.
+     */
+    private static boolean plain(final @NotNull Event value, final @NotNull Iterator<Event> events) {
+        boolean plain = plain(value);
+        if (!(value instanceof CollectionStartEvent)) return plain;
+
+        int depth = 1;
+        while (depth > 0) {
+            final Event next = events.next();
+            plain &= plain(next);
+
+            if (next instanceof CollectionStartEvent) depth++;
+            else if (next.is(Event.ID.MappingEnd) || next.is(Event.ID.SequenceEnd)) depth--;
+        }
+
+        return plain;
+    }
+
+    private static boolean plain(final @NotNull Event event) {
+        if (event instanceof AliasEvent) return false;
+        if (event instanceof NodeEvent node && node.getAnchor() != null) return false;
+
+        return !(event instanceof ScalarEvent scalar)
+                || (scalar.getScalarStyle() != DumperOptions.ScalarStyle.LITERAL && scalar.getScalarStyle() != DumperOptions.ScalarStyle.FOLDED);
+    }
+
+    /**
+     * Moves up from a line over the blank and comment lines above it, which belong to the entry starting there.
+     */
+    private int comments(final int line, final int floor) {
+        int start = line;
+        while (start > floor && blankOrComment(start - 1)) start--;
+        return start;
+    }
+
+    private boolean blankOrComment(final int line) {
+        final int end = line + 1 < lines.length ? lines[line + 1] : text.length();
+
+        for (int i = lines[line]; i < end; i++) {
+            final char character = text.charAt(i);
+            if (character == '#') return true;
+            if (!Character.isWhitespace(character)) return false;
+        }
+
+        return true;
+    }
+
+    private int offset(final int line) {
+        return line < lines.length ? lines[line] : text.length();
+    }
+
+    private @NotNull LazyConfiguration.Subtree subtree(final int from, final int to) {
+        return (configuration, key) -> {
+            final YamlConfiguration parsed = new YamlConfiguration();
+
+            try {
+                parsed.loadFromString(text.substring(from, to));
+            } catch (InvalidConfigurationException e) {
+                throw new IOException(e);
+            }
+
+            final Object value = parsed.get(key);
+
+            if (value instanceof ConfigurationSection section) {
+                // Creating the section drops the comments the skeleton loaded for the key.
+                final List<String> comments = configuration.getComments(key);
+                copy(section, configuration.createSection(key));
+                configuration.setComments(key, comments);
+            } else {
+                configuration.set(key, value);
+            }
+
+            configuration.setInlineComments(key, parsed.getInlineComments(key));
+        };
+    }
+
+    static void copy(final @NotNull ConfigurationSection from, final @NotNull ConfigurationSection to) {
+        for (final String key : from.getKeys(false)) {
+            final Object value = from.get(key);
+
+            if (value instanceof ConfigurationSection section) copy(section, to.createSection(key));
+            else to.set(key, value);
+
+            to.setComments(key, from.getComments(key));
+            to.setInlineComments(key, from.getInlineComments(key));
+        }
+    }
+}
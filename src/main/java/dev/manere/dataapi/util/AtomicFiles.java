@@ -0,0 +1,155 @@
+package dev.manere.dataapi.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The AtomicFiles class provides crash-safe file replacement.
+ * Content is written to a sibling temp file, optionally forced to the device, and renamed over the target,
+ * so readers and crashes only ever observe the old or the new content, never a half-written file.
+ */
+public class AtomicFiles {
+    /**
+     * Replaces the content of the target file atomically.
+     *
+     * @param target  The file to replace.
+     * @param content The new content.
+     * @param force   Whether to force the content and the rename to the storage device.
+     * @throws IOException If writing or renaming fails, the target is left untouched.
+     */
+    public static void write(final @NotNull Path target, final byte @NotNull [] content, final boolean force) throws IOException {
+        final Path temp = temp(target);
+
+        writeTemp(temp, content, force);
+        move(temp, target);
+
+        if (force) syncDirectory(target.getParent());
+    }
+
+    /**
+     * Retrieves the temp file the target is written through.
+     *
+     * @param target The file to replace.
+     * @return The sibling temp file.
+     */
+    public static @NotNull Path temp(final @NotNull Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    private static void writeTemp(final @NotNull Path temp, final byte @NotNull [] content, final boolean force) throws IOException {
+        try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) channel.write(buffer);
+
+            if (force) channel.force(true);
+        }
+    }
+
+    private static void force(final @NotNull Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void move(final @NotNull Path temp, final @NotNull Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces a directory entry change (such as a rename) to the storage device.
+     * Silently skipped on platforms which can't open directories, such as Windows.
+     *
+     * @param directory The directory to sync.
+     */
+    public static void syncDirectory(final @Nullable Path directory) {
+        if (directory == null) return;
+
+        try (final FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Creates a batch which replaces many files behind a single durability barrier (group commit).
+     *
+     * @param force Whether to force the batch to the storage device.
+     * @return The created batch.
+     */
+    public static @NotNull Batch batch(final boolean force) {
+        return new Batch(force);
+    }
+
+    /**
+     * A group of atomic file replacements committed together.
+     * Temp files are written as they are added, then forced back to back and renamed in one go,
+     * and each touched directory is synced once instead of once per file.
+     */
+    public static class Batch {
+        private final boolean force;
+        private final List<Path> temps = new ArrayList<>();
+        private final List<Path> targets = new ArrayList<>();
+
+        private Batch(final boolean force) {
+            this.force = force;
+        }
+
+        /**
+         * Writes the content to the temp file of the target, the target is replaced on {@link #commit()}.
+         *
+         * @param target  The file to replace.
+         * @param content The new content.
+         * @throws IOException If writing the temp file fails.
+         */
+        public void add(final @NotNull Path target, final byte @NotNull [] content) throws IOException {
+            final Path temp = temp(target);
+
+            writeTemp(temp, content, false);
+            temps.add(temp);
+            targets.add(target);
+        }
+
+        public int size() {
+            return targets.size();
+        }
+
+        /**
+         * Replaces every added target.
+         * When forced, all temp files are durable before the first rename, so a crash never publishes part of a batch
+         * whose content isn't on the device yet.
+         *
+         * @throws IOException If forcing or renaming fails.
+         */
+        public void commit() throws IOException {
+            if (force) {
+                for (final Path temp : temps) force(temp);
+            }
+
+            final Set<Path> directories = new LinkedHashSet<>();
+            for (int i = 0; i < temps.size(); i++) {
+                move(temps.get(i), targets.get(i));
+                directories.add(targets.get(i).getParent());
+            }
+
+            if (force) {
+                for (final Path directory : directories) syncDirectory(directory);
+            }
+        }
+    }
+}
@@ -1,24 +1,37 @@
 package dev.manere.dataapi.util;
 
-import dev.manere.dataapi.impl.DataAPIImpl;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The NodePath class represents a path of string nodes, typically used for data resource hierarchy.
+ * NodePaths are immutable, their dot-separated key is computed once on construction.
  */
 public class NodePath {
+    /**
+     * The root marker, nodes equal to it are skipped when converting the path.
+     */
+    public static final String ROOT = "~";
+
+    private static final NodePath EMPTY = new NodePath();
+    private static final int COMPILED_LIMIT = 8192;
+    private static final Map<String, NodePath> COMPILED = new ConcurrentHashMap<>();
+
     private final List<String> parents;
+    private final String key;
+    private final String prefix;
+    private volatile NodePath parent;
 
     /**
      * Constructs an empty NodePath.
      */
     public NodePath() {
-        this.parents = new ArrayList<>();
+        this(List.of());
     }
 
     /**
@@ -27,7 +40,7 @@ public class NodePath {
      * @param parents The parent nodes.
      */
     public NodePath(final @NotNull String... parents) {
-        this.parents = new ArrayList<>(Arrays.asList(parents));
+        this(Arrays.asList(parents));
     }
 
     /**
@@ -36,7 +49,17 @@ public class NodePath {
      * @param parents The list of parent nodes.
      */
     public NodePath(final @NotNull List<String> parents) {
-        this.parents = parents;
+        this.parents = List.copyOf(parents);
+
+        final StringBuilder builder = new StringBuilder();
+        for (final String node : this.parents) {
+            if (node.equals(ROOT)) continue;
+            if (!builder.isEmpty()) builder.append('.');
+            builder.append(node);
+        }
+
+        this.key = builder.toString();
+        this.prefix = key.isEmpty() ? "" : key + ".";
     }
 
     /**
@@ -60,36 +83,114 @@ public class NodePath {
     }
 
     /**
-     * Creates a new NodePath representing the root node.
+     * Retrieves the NodePath representing the root node.
      *
-     * @return The created NodePath instance representing the root.
+     * @return The NodePath instance representing the root.
      */
     public static @NotNull NodePath root() {
-        return new NodePath(new ArrayList<>(Collections.singletonList(DataAPIImpl.apiRoot())));
+        return EMPTY;
+    }
+
+    /**
+     * Retrieves the NodePath of a dot-separated path, such as {@code "stats.kills"}.
+     * Compiled paths are interned, so compiling the same path again only costs a lookup.
+     *
+     * @param path The dot-separated path.
+     * @return The compiled NodePath instance.
+     */
+    public static @NotNull NodePath compile(final @NotNull String path) {
+        final NodePath cached = COMPILED.get(path);
+        if (cached != null) return cached;
+
+        final NodePath compiled = new NodePath(split(path));
+
+        // Bounded so dynamically built paths can't grow the cache forever.
+        if (COMPILED.size() >= COMPILED_LIMIT) COMPILED.clear();
+        COMPILED.put(path, compiled);
+
+        return compiled;
+    }
+
+    private static @NotNull List<String> split(final @NotNull String path) {
+        final List<String> nodes = new ArrayList<>();
+
+        int start = 0;
+        int end;
+        while ((end = path.indexOf('.', start)) != -1) {
+            nodes.add(path.substring(start, end));
+            start = end + 1;
+        }
+        nodes.add(path.substring(start));
+
+        // Same as String#split, trailing empty nodes are dropped.
+        while (nodes.size() > 1 && nodes.get(nodes.size() - 1).isEmpty()) nodes.remove(nodes.size() - 1);
+
+        return nodes;
     }
 
     /**
      * Retrieves the list of parent nodes.
      *
-     * @return The list of parent nodes.
+     * @return The unmodifiable list of parent nodes.
      */
     public @NotNull List<String> parents() {
         return parents;
     }
 
     /**
-     * Converts the NodePath to a dot-separated string.
+     * Retrieves the dot-separated key of this path, as used by configurations.
      *
-     * @return The dot-separated string representation of the NodePath.
+     * @return The dot-separated key, empty for the root.
      */
-    public @NotNull String convert() {
-        final StringBuilder builder = new StringBuilder();
+    public @NotNull String key() {
+        return key;
+    }
 
-        for (final String parent : parents) {
-            builder.append(parent).append(".");
+    /**
+     * Retrieves the last node of this path.
+     *
+     * @return The last node, empty for the root.
+     */
+    public @NotNull String name() {
+        return parents.isEmpty() ? "" : parents.get(parents.size() - 1);
+    }
+
+    /**
+     * Retrieves the path without its last node.
+     *
+     * @return The parent path, the root for the root itself.
+     */
+    public @NotNull NodePath parent() {
+        NodePath parent = this.parent;
+
+        if (parent == null) {
+            parent = parents.size() <= 1 ? EMPTY : new NodePath(parents.subList(0, parents.size() - 1));
+            this.parent = parent;
         }
 
-        return builder.toString().replaceAll("~.", "");
+        return parent;
+    }
+
+    /**
+     * Creates the path of a child node of this path.
+     *
+     * @param name The name of the child node.
+     * @return The child path.
+     */
+    public @NotNull NodePath child(final @NotNull String name) {
+        final List<String> nodes = new ArrayList<>(parents.size() + 1);
+        nodes.addAll(parents);
+        nodes.add(name);
+        return new NodePath(nodes);
+    }
+
+    /**
+     * Converts the NodePath to a dot-separated string, including a trailing dot unless the path is the root.
+     *
+     * @return The dot-separated string representation of the NodePath.
+     */
+    public @NotNull String convert() {
+        return prefix;
     }
 
     /**
@@ -101,4 +202,19 @@ public class NodePath {
     public static @NotNull String convert(final @NotNull NodePath path) {
         return path.convert();
     }
+
+    @Override
+    public boolean equals(final Object object) {
+        return this == object || object instanceof NodePath path && key.equals(path.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
 }
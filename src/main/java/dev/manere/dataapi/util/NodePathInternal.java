@@ -2,10 +2,6 @@ package dev.manere.dataapi.util;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 /**
  * Utility class for working with node paths.
  * This class provides methods to extract path-only or name-only components from a full node path.
@@ -20,10 +16,7 @@ public class NodePathInternal {
      */
     @NotNull
     public static NodePath pathOnly(final @NotNull String entirety) {
-        final String[] splitRaw = entirety.split("\\.");
-        final List<String> split = new ArrayList<>(Arrays.asList(splitRaw));
-        if (split.get(split.size() - 1) != null) split.remove(split.size() - 1);
-        return NodePath.parents(split);
+        return NodePath.compile(entirety).parent();
     }
 
     /**
@@ -35,14 +28,6 @@ public class NodePathInternal {
      */
     @NotNull
     public static String nameOnly(final @NotNull String entirety) {
-        final String[] splitRaw = entirety.split("\\.");
-        final List<String> split = new ArrayList<>(Arrays.asList(splitRaw));
-
-        if (!split.isEmpty()) {
-            final String name = split.get(split.size() - 1);
-            return name == null ? "" : name;
-        }
-
-        return "";
+        return NodePath.compile(entirety).name();
     }
 }
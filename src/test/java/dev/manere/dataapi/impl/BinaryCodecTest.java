@@ -0,0 +1,123 @@
+package dev.manere.dataapi.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryCodecTest {
+    private static byte[] encode(final Object value) throws IOException {
+        final BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(false);
+        encoder.value(value);
+        return encoder.toByteArray();
+    }
+
+    private static Object decode(final byte[] content) throws IOException {
+        return new BinaryCodec.Decoder(ByteBuffer.wrap(content), null).value();
+    }
+
+    @Test
+    void roundTripsScalars() throws IOException {
+        for (final Object value : Arrays.asList(null, true, false, (byte) 7, (short) -3, 42, Long.MIN_VALUE, 1.5f, -0.25, 'x', "h\u00e9llo \uD83D\uDE00", new BigInteger("123456789012345678901234567890"))) {
+            assertEquals(value, decode(encode(value)));
+        }
+    }
+
+    @Test
+    void roundTripsContainers() throws IOException {
+        final Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("name", "steve");
+        nested.put("scores", List.of(1, 2, 3));
+
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("nested", nested);
+        map.put("empty", List.of());
+        map.put("level", 12);
+
+        assertEquals(map, decode(encode(map)));
+        assertEquals(List.of("a", List.of("b"), 3L), decode(encode(List.of("a", List.of("b"), 3L))));
+    }
+
+    @Test
+    void skipsValuesByTheirLength() throws IOException {
+        final BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(false);
+        encoder.value(Map.of("skipped", List.of(1, 2, 3)));
+        encoder.value("skipped");
+        encoder.value(9L);
+
+        final BinaryCodec.Decoder decoder = new BinaryCodec.Decoder(ByteBuffer.wrap(encoder.toByteArray()), null);
+        decoder.skip();
+        decoder.skip();
+        assertEquals(9L, decoder.value());
+        assertFalse(decoder.buffer().hasRemaining());
+    }
+
+    @Test
+    void rejectsTruncatedValues() throws IOException {
+        final byte[] content = encode(Map.of("list", List.of("a", "b"), "number", 5));
+
+        for (int length = 0; length < content.length; length++) {
+            final byte[] truncated = Arrays.copyOf(content, length);
+            assertThrows(IOException.class, () -> decode(truncated));
+            assertThrows(IOException.class, () -> new BinaryCodec.Decoder(ByteBuffer.wrap(truncated), null).skip());
+        }
+    }
+
+    @Test
+    void rejectsCountsPastTheContent() {
+        // A list claiming Integer.MAX_VALUE elements must fail instead of allocating for them.
+        final BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(false);
+        encoder.write(BinaryCodec.LIST);
+        encoder.writeInt(6);
+        encoder.varint(Integer.MAX_VALUE);
+        encoder.write(BinaryCodec.NULL);
+
+        assertThrows(IOException.class, () -> decode(encoder.toByteArray()));
+    }
+
+    @Test
+    void rejectsLengthsPastTheContent() {
+        final BinaryCodec.Encoder string = new BinaryCodec.Encoder(false);
+        string.write(BinaryCodec.STRING);
+        string.varint(1000);
+        string.write((byte) 'a');
+
+        final BinaryCodec.Encoder section = new BinaryCodec.Encoder(false);
+        section.write(BinaryCodec.SECTION);
+        section.writeInt(1000);
+
+        assertThrows(IOException.class, () -> decode(string.toByteArray()));
+        assertThrows(IOException.class, () -> new BinaryCodec.Decoder(ByteBuffer.wrap(section.toByteArray()), null).skip());
+        assertThrows(IOException.class, () -> new BinaryCodec.Decoder(ByteBuffer.wrap(new byte[]{BinaryCodec.STRING, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}), null).skip());
+    }
+
+    @Test
+    void rejectsMalformedContent() {
+        assertThrows(IOException.class, () -> decode(new byte[]{(byte) 0x7F}));
+        assertThrows(IOException.class, () -> new BinaryCodec.Decoder(ByteBuffer.wrap(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01}), null).varint());
+        assertThrows(IOException.class, () -> decode(new byte[]{BinaryCodec.BIG_INTEGER, 2, 'n', 'o'}));
+    }
+
+    @Test
+    void rejectsUnknownKeyIndices() throws IOException {
+        final BinaryCodec.Encoder encoder = new BinaryCodec.Encoder(false);
+        encoder.varint(3);
+
+        assertThrows(IOException.class, () -> new BinaryCodec.Decoder(ByteBuffer.wrap(encoder.toByteArray()), new String[]{"a", "b"}).key());
+    }
+
+    @Test
+    void encodesArraysAsLists() throws IOException {
+        assertEquals(new ArrayList<>(List.of("a", "b")), decode(encode(new String[]{"a", "b"})));
+    }
+}
@@ -0,0 +1,112 @@
+package dev.manere.dataapi.impl;
+
+import dev.manere.dataapi.util.NodePath;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryStorageFormatTest {
+    private static final BinaryStorageFormat FORMAT = BinaryStorageFormat.INSTANCE;
+
+    private static FileConfiguration configuration(final int entries) {
+        final FileConfiguration configuration = new YamlConfiguration();
+        configuration.set("name", "steve");
+        configuration.set("level", 12);
+        configuration.set("balance", 12.5);
+        configuration.set("banned", false);
+        configuration.set("joined", 1_700_000_000_000L);
+        configuration.set("homes", List.of("spawn", "base"));
+        configuration.set("stats.kills", 5);
+        configuration.set("stats.deaths.pvp", 2);
+
+        for (int i = 0; i < entries; i++) configuration.set("entries.key" + i, "value" + i);
+        return configuration;
+    }
+
+    private static void assertSameValues(final ConfigurationSection expected, final ConfigurationSection actual) {
+        assertEquals(expected.getKeys(true), actual.getKeys(true));
+
+        for (final String key : expected.getKeys(true)) {
+            if (expected.isConfigurationSection(key)) assertTrue(actual.isConfigurationSection(key), key);
+            else assertEquals(expected.get(key), actual.get(key), key);
+        }
+    }
+
+    @Test
+    void roundTripsConfigurations() throws IOException {
+        final FileConfiguration small = configuration(10);
+        assertSameValues(small, FORMAT.read(ByteBuffer.wrap(FORMAT.write(small))));
+
+        // Large enough to load lazily, every deferred subtree must decode to the same values.
+        final FileConfiguration large = configuration(2000);
+        final byte[] content = FORMAT.write(large);
+        assertTrue(content.length >= LazyConfiguration.THRESHOLD);
+        assertSameValues(large, FORMAT.read(ByteBuffer.wrap(content)));
+    }
+
+    @Test
+    void readsEmptyContent() throws IOException {
+        assertTrue(FORMAT.read(ByteBuffer.allocate(0)).getKeys(false).isEmpty());
+    }
+
+    @Test
+    void projectsOnlyWantedValues() throws IOException {
+        final byte[] content = FORMAT.write(configuration(100));
+        final NodePath kills = NodePath.compile("stats.kills");
+        final NodePath pvp = NodePath.compile("stats.deaths.pvp");
+        final NodePath name = NodePath.compile("name");
+        final NodePath missing = NodePath.compile("stats.missing");
+
+        final Map<NodePath, Object> values = FORMAT.project(ByteBuffer.wrap(content), Set.of(kills, pvp, name, missing));
+        assertEquals(Map.of(kills, 5, pvp, 2, name, "steve"), values);
+    }
+
+    @Test
+    void rejectsOtherContent() {
+        assertThrows(IOException.class, () -> FORMAT.read(ByteBuffer.wrap("name: steve\n".getBytes())));
+    }
+
+    @Test
+    void rejectsTruncatedContent() throws IOException {
+        final byte[] content = FORMAT.write(configuration(10));
+        final Set<NodePath> paths = Set.of(NodePath.compile("entries.key9"));
+
+        for (int length = 1; length < content.length; length++) {
+            final byte[] truncated = Arrays.copyOf(content, length);
+            assertThrows(IOException.class, () -> FORMAT.read(ByteBuffer.wrap(truncated)), "read of " + length + " bytes");
+            assertThrows(IOException.class, () -> FORMAT.project(ByteBuffer.wrap(truncated), paths), "projection of " + length + " bytes");
+        }
+    }
+
+    @Test
+    void failsCorruptedContentWithIOException() throws IOException {
+        final byte[] content = FORMAT.write(configuration(10));
+        final Set<NodePath> paths = Set.of(NodePath.compile("stats.kills"), NodePath.compile("entries.key3"));
+        final Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            final byte[] corrupted = content.clone();
+            for (int flips = 1 + random.nextInt(4); flips > 0; flips--) corrupted[random.nextInt(corrupted.length)] = (byte) random.nextInt(256);
+
+            try {
+                FORMAT.read(ByteBuffer.wrap(corrupted));
+                FORMAT.project(ByteBuffer.wrap(corrupted), paths);
+            } catch (IOException expected) {
+                // Corruption may also go unnoticed, the codec has no checksum. It just must not fail otherwise.
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.manere.dataapi.impl;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaJournalTest {
+    private static final int BASE = 0x12345678;
+
+    @TempDir
+    File folder;
+
+    private File resource() {
+        return new File(folder, "resource.yml");
+    }
+
+    private ByteBuffer journal() throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(DeltaJournal.file(resource()).toPath()));
+    }
+
+    private static String text(final ByteBuffer record) {
+        return StandardCharsets.UTF_8.decode(record.duplicate()).toString();
+    }
+
+    private void append(final String... records) throws IOException {
+        for (final String record : records) DeltaJournal.append(resource(), BASE, record.getBytes(StandardCharsets.UTF_8), false);
+    }
+
+    @Test
+    void readsAppendedRecordsInOrder() throws IOException {
+        append("first", "second", "");
+
+        final ByteBuffer journal = journal();
+        final List<ByteBuffer> records = DeltaJournal.records(journal, BASE);
+
+        assertEquals(List.of("first", "second", ""), records.stream().map(DeltaJournalTest::text).toList());
+        assertEquals(journal.remaining(), DeltaJournal.length(records));
+    }
+
+    @Test
+    void ignoresJournalsOfOtherContent() throws IOException {
+        append("first");
+
+        assertTrue(DeltaJournal.records(journal(), BASE + 1).isEmpty());
+        assertTrue(DeltaJournal.records(ByteBuffer.wrap("garbage".getBytes(StandardCharsets.UTF_8)), BASE).isEmpty());
+    }
+
+    @Test
+    void restartsJournalForNewContent() throws IOException {
+        append("stale");
+        DeltaJournal.append(resource(), BASE + 1, "fresh".getBytes(StandardCharsets.UTF_8), false);
+
+        final List<ByteBuffer> records = DeltaJournal.records(journal(), BASE + 1);
+        assertEquals(List.of("fresh"), records.stream().map(DeltaJournalTest::text).toList());
+    }
+
+    @Test
+    void stopsAtTornRecord() throws IOException {
+        append("first", "second");
+
+        final File file = DeltaJournal.file(resource());
+        try (final RandomAccessFile torn = new RandomAccessFile(file, "rw")) {
+            torn.setLength(file.length() - 3);
+        }
+
+        final ByteBuffer journal = journal();
+        final List<ByteBuffer> records = DeltaJournal.records(journal, BASE);
+
+        assertEquals(List.of("first"), records.stream().map(DeltaJournalTest::text).toList());
+        assertTrue(DeltaJournal.length(records) < journal.remaining(), "a torn journal isn't intact");
+    }
+
+    @Test
+    void stopsAtCorruptedRecord() throws IOException {
+        append("first", "second", "third");
+
+        final byte[] content = journal().array();
+        final int second = content.length - ("third".length() + 8) - 1;
+        content[second] ^= 0x20;
+
+        final List<ByteBuffer> records = DeltaJournal.records(ByteBuffer.wrap(content), BASE);
+        assertEquals(List.of("first"), records.stream().map(DeltaJournalTest::text).toList());
+    }
+
+    @Test
+    void deletesJournal() throws IOException {
+        append("first");
+        DeltaJournal.delete(resource());
+
+        assertFalse(DeltaJournal.file(resource()).exists());
+    }
+
+    @Test
+    void replaysDeltasOverContent() {
+        final FileConfiguration saved = new YamlConfiguration();
+        saved.set("name", "steve");
+        saved.set("level", 1);
+        saved.set("stats.kills", 1);
+        saved.set("removed", true);
+
+        final FileConfiguration current = new YamlConfiguration();
+        current.set("name", "steve");
+        current.set("level", 2);
+        current.set("stats.kills", 5);
+        current.set("stats.deaths", 3);
+
+        final FileConfiguration loaded = new YamlConfiguration();
+        for (final String key : saved.getKeys(true)) if (!saved.isConfigurationSection(key)) loaded.set(key, saved.get(key));
+
+        DeltaJournal.apply(DeltaJournal.delta(current, List.of("level", "stats", "removed")), loaded);
+
+        assertEquals("steve", loaded.get("name"));
+        assertEquals(2, loaded.get("level"));
+        assertEquals(5, loaded.get("stats.kills"));
+        assertEquals(3, loaded.get("stats.deaths"));
+        assertNull(loaded.get("removed"));
+    }
+}
@@ -0,0 +1,99 @@
+package dev.manere.dataapi.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrimitiveSlotTest {
+    @Test
+    void keepsTheKindOfConfigurationValues() {
+        assertEquals(5, PrimitiveSlot.of(5).boxed());
+        assertEquals(5, PrimitiveSlot.of((short) 5).boxed());
+        assertEquals(5L, PrimitiveSlot.of(5L).boxed());
+        assertEquals(2.5, PrimitiveSlot.of(2.5).boxed());
+        assertEquals(true, PrimitiveSlot.of(true).boxed());
+        assertNull(PrimitiveSlot.of(null).boxed());
+    }
+
+    @Test
+    void readsOtherValuesAsAbsent() {
+        for (final Object value : List.of("12", List.of(1), 'c')) {
+            final PrimitiveSlot slot = PrimitiveSlot.of(value);
+
+            assertFalse(slot.present());
+            assertNull(slot.boxed());
+            assertTrue(slot.booleanValue(true));
+        }
+    }
+
+    @Test
+    void convertsLikeBukkit() {
+        assertEquals(2, PrimitiveSlot.of(2.9).longValue());
+        assertEquals(3.0, PrimitiveSlot.of(3).doubleValue());
+        assertTrue(PrimitiveSlot.of(true).booleanValue(false));
+        assertFalse(PrimitiveSlot.of(1).booleanValue(false));
+    }
+
+    @Test
+    void addsAtomically() throws InterruptedException {
+        final PrimitiveSlot slot = PrimitiveSlot.of(null);
+        final Thread[] threads = new Thread[4];
+
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) slot.add(1);
+            });
+            threads[i].start();
+        }
+
+        for (final Thread thread : threads) thread.join();
+        assertEquals(40_000, slot.boxed());
+    }
+
+    @Test
+    void widensPastIntRange() {
+        final PrimitiveSlot slot = PrimitiveSlot.of(Integer.MAX_VALUE);
+
+        assertEquals(Integer.MAX_VALUE + 1L, slot.add(1));
+        assertEquals(Integer.MAX_VALUE + 1L, slot.boxed());
+    }
+
+    @Test
+    void turnsIntoDoubleOnFractionalAdd() {
+        final PrimitiveSlot slot = PrimitiveSlot.of(2);
+
+        assertEquals(2.5, slot.add(0.5));
+        assertEquals(3L, slot.add(1));
+        assertEquals(3.5, slot.boxed());
+    }
+
+    @Test
+    void refusesToAddToOtherValues() {
+        final PrimitiveSlot text = PrimitiveSlot.of("12");
+        final PrimitiveSlot bool = PrimitiveSlot.of(true);
+
+        assertThrows(IllegalStateException.class, () -> text.add(1));
+        assertThrows(IllegalStateException.class, () -> bool.add(1.0));
+        assertFalse(text.clean(), "a refused add leaves the slot unchanged");
+
+        text.set(3, PrimitiveSlot.Kind.INT);
+        assertEquals(4L, text.add(1));
+    }
+
+    @Test
+    void reportsChangesOnce() {
+        final PrimitiveSlot slot = PrimitiveSlot.of(1);
+        assertFalse(slot.clean());
+
+        slot.set(2, PrimitiveSlot.Kind.LONG);
+        assertTrue(slot.clean());
+        assertFalse(slot.clean());
+        assertEquals(2L, slot.boxed());
+    }
+}
@@ -0,0 +1,129 @@
+package dev.manere.dataapi.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteAheadLogTest {
+    private static final Logger LOGGER = Logger.getLogger("WriteAheadLogTest");
+
+    @TempDir
+    File dataFolder;
+
+    private record Replayed(File file, String path, Object value) {}
+
+    private File folder() {
+        return new File(dataFolder, ".wal");
+    }
+
+    private WriteAheadLog open() throws IOException {
+        return new WriteAheadLog(folder(), dataFolder, Duration.ofHours(1), LOGGER);
+    }
+
+    private List<Replayed> replay() throws IOException {
+        final List<Replayed> replayed = new ArrayList<>();
+        final WriteAheadLog log = open();
+
+        try {
+            final int count = log.replay((file, path, value) -> replayed.add(new Replayed(file, path, value.value())));
+            assertEquals(replayed.size(), count);
+        } finally {
+            log.close();
+        }
+
+        return replayed;
+    }
+
+    private File segment() {
+        final File[] segments = folder().listFiles((directory, name) -> name.endsWith(".log"));
+        assertTrue(segments != null && segments.length == 1);
+        return segments[0];
+    }
+
+    @Test
+    void replaysRecordsInLogOrder() throws IOException {
+        final File resource = new File(dataFolder, "players/steve.yml");
+        final WriteAheadLog log = open();
+
+        log.append(resource, "level", WriteAheadLog.encode(1));
+        log.append(resource, "stats", WriteAheadLog.encode(Map.of("kills", 5)));
+        log.append(resource, "balance", () -> 12.5);
+        log.append(resource, "level", WriteAheadLog.encode(2));
+        log.close();
+
+        assertEquals(List.of(
+                new Replayed(resource, "level", 1),
+                new Replayed(resource, "stats", Map.of("kills", 5)),
+                new Replayed(resource, "balance", 12.5),
+                new Replayed(resource, "level", 2)
+        ), replay());
+    }
+
+    @Test
+    void ignoresTornTail() throws IOException {
+        final File resource = new File(dataFolder, "steve.yml");
+        final WriteAheadLog log = open();
+
+        log.append(resource, "first", WriteAheadLog.encode("a"));
+        log.append(resource, "second", WriteAheadLog.encode("b"));
+        log.close();
+
+        final File segment = segment();
+        try (final RandomAccessFile torn = new RandomAccessFile(segment, "rw")) {
+            torn.setLength(segment.length() - 2);
+        }
+
+        assertEquals(List.of(new Replayed(resource, "first", "a")), replay());
+    }
+
+    @Test
+    void stopsAtCorruptedRecord() throws IOException {
+        final File resource = new File(dataFolder, "steve.yml");
+        final WriteAheadLog log = open();
+
+        log.append(resource, "first", WriteAheadLog.encode("a"));
+        log.append(resource, "other", WriteAheadLog.encode("b"));
+        log.append(resource, "third", WriteAheadLog.encode("c"));
+        log.close();
+
+        // The records are equally long, this flips the value of the second one so its checksum no longer matches.
+        final byte[] content = Files.readAllBytes(segment().toPath());
+        final int length = content.length / 3;
+        content[2 * length - 1] ^= 0x01;
+        Files.write(segment().toPath(), content);
+
+        assertEquals(List.of(new Replayed(resource, "first", "a")), replay());
+    }
+
+    @Test
+    void checkpointDropsSavedSegments() throws IOException {
+        final File resource = new File(dataFolder, "steve.yml");
+        final WriteAheadLog log = open();
+
+        log.append(resource, "saved", WriteAheadLog.encode(1));
+        final long sealed = log.rotate();
+        log.append(resource, "unsaved", WriteAheadLog.encode(2));
+        log.checkpoint(sealed);
+        log.close();
+
+        assertEquals(List.of(new Replayed(resource, "unsaved", 2)), replay());
+    }
+
+    @Test
+    void refusesValuesItCantHold() {
+        assertThrows(IllegalArgumentException.class, () -> WriteAheadLog.encode(new Object()));
+    }
+}
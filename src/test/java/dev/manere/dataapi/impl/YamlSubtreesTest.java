@@ -0,0 +1,70 @@
+package dev.manere.dataapi.impl;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YamlSubtreesTest {
+    private static String document(final String extra) {
+        final StringBuilder text = new StringBuilder("# Header\n\nname: steve\nlevel: 12\n");
+
+        for (int i = 0; i < 200; i++) {
+            text.append("# Section ").append(i).append('\n');
+            text.append("section").append(i).append(":\n");
+            text.append("  value: ").append(i).append('\n');
+            text.append("  nested:\n    text: \"quoted: ").append(i).append("\"\n");
+            text.append("  list:\n  - a\n  - ").append(i).append('\n');
+        }
+
+        return text.append(extra).append("last: true\n").toString();
+    }
+
+    private static YamlConfiguration eager(final String text) throws InvalidConfigurationException {
+        final YamlConfiguration configuration = new YamlConfiguration();
+        configuration.loadFromString(text);
+        return configuration;
+    }
+
+    private static void assertSameValues(final ConfigurationSection expected, final ConfigurationSection actual) {
+        assertEquals(expected.getKeys(true), actual.getKeys(true));
+
+        for (final String key : expected.getKeys(true)) {
+            if (expected.isConfigurationSection(key)) assertTrue(actual.isConfigurationSection(key), key);
+            else assertEquals(expected.get(key), actual.get(key), key);
+        }
+    }
+
+    @Test
+    void loadsSmallDocumentsEagerly() throws InvalidConfigurationException {
+        assertNull(YamlSubtrees.load("name: steve\nstats:\n  kills: 5\n"));
+    }
+
+    @Test
+    void defersCollectionsAndLoadsLikeTheParser() throws InvalidConfigurationException {
+        final String text = document("");
+        final LazyConfiguration lazy = YamlSubtrees.load(text);
+
+        assertNotNull(lazy);
+        assertEquals(200, lazy.deferred());
+        assertEquals(12, lazy.get("level"));
+        assertEquals(200, lazy.deferred(), "scalars load without touching subtrees");
+
+        assertEquals("quoted: 7", lazy.get("section7.nested.text"));
+        assertEquals(199, lazy.deferred());
+
+        assertSameValues(eager(text), lazy);
+    }
+
+    @Test
+    void loadsDocumentsItCantSplitEagerly() throws InvalidConfigurationException {
+        assertNull(YamlSubtrees.load(document("anchored: &anchor\n  value: 1\naliased: *anchor\n")));
+        assertNull(YamlSubtrees.load(document("block: |\n  line\n")));
+        assertNull(YamlSubtrees.load(document("dotted.key:\n  value: 1\n")));
+    }
+}